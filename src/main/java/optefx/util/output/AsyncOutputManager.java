@@ -0,0 +1,470 @@
+
+package optefx.util.output;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implements an asynchronous output manager. The text printed through the 
+ * outputs is copied into a preallocated ring buffer, which supports multiple 
+ * producer threads without locks, and a dedicated writer thread drains it to
+ * the writers of each id. Therefore, the I/O is performed out of the threads 
+ * of the algorithms, and the writers are flushed when the buffer becomes
+ * empty, when flush() is called on an output, or when the outputs are closed.
+ * The flush policies of the ids (see FlushPolicy) are also applied, except
+ * for the default policy, which is replaced by the flushes of the writer 
+ * thread.
+ * 
+ * The outputs are shared by all the threads. When the buffer is full, the 
+ * producers wait until the writer thread frees some space. The closeOutputs()
+ * methods wait until all the text printed before the call has been written, 
+ * and the drain() method can be used for the same purpose without closing the
+ * outputs. The text that has not been drained when the application exits is 
+ * lost, as the writer thread is a daemon thread.
+ * @author Enrique Urra C.
+ */
+public class AsyncOutputManager extends OutputManager
+{
+    private static final byte KIND_WRITE = 0;
+    private static final byte KIND_FLUSH = 1;
+    private static final byte KIND_CLOSE = 2;
+    private static final byte KIND_BARRIER = 3;
+    
+    public static final int DEFAULT_SLOT_COUNT = 1024;
+    public static final int DEFAULT_SLOT_CAPACITY = 512;
+    
+    private class AsyncWriter extends Writer
+    {
+        private final MultiWriter target;
+
+        public AsyncWriter(MultiWriter target)
+        {
+            this.target = target;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            while(len > 0)
+            {
+                int count = Math.min(len, slotCapacity);
+                long pos = claim();
+                int idx = (int)pos & mask;
+                System.arraycopy(cbuf, off, getSlotChars(idx), 0, count);
+                publish(pos, idx, KIND_WRITE, target, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            while(len > 0)
+            {
+                int count = Math.min(len, slotCapacity);
+                long pos = claim();
+                int idx = (int)pos & mask;
+                str.getChars(off, off + count, getSlotChars(idx), 0);
+                publish(pos, idx, KIND_WRITE, target, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            long pos = claim();
+            publish(pos, (int)pos & mask, KIND_FLUSH, target, 0);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            long pos = claim();
+            publish(pos, (int)pos & mask, KIND_CLOSE, target, 0);
+        }
+    }
+    
+    private class Channel
+    {
+        private final MultiWriter writer;
+        private final AsyncWriter asyncWriter;
+        private final PrintWriter printer;
+
+        public Channel()
+        {
+            this.writer = new MultiWriter();
+            this.asyncWriter = new AsyncWriter(writer);
+            this.printer = new PrintWriter(asyncWriter);
+        }
+        
+        public void close()
+        {
+            try
+            {
+                asyncWriter.close();
+            }
+            catch(IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+    
+    private final Map<String, Channel> table;
+    private final int slotCapacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final char[][] slotChars;
+    private final int[] slotLengths;
+    private final byte[] slotKinds;
+    private final MultiWriter[] slotTargets;
+    private final AtomicLong tail;
+    private volatile long barrierDone;
+    private volatile boolean sleeping;
+    private volatile Throwable error;
+    private Thread writerThread;
+
+    public AsyncOutputManager()
+    {
+        this(DEFAULT_SLOT_COUNT, DEFAULT_SLOT_CAPACITY);
+    }
+    
+    /**
+     * Creates the manager with a specific buffer size.
+     * @param slotCount The amount of slots of the ring buffer, which is 
+     * rounded up to a power of two.
+     * @param slotCapacity The amount of chars of each slot. Longer texts are
+     * split into several slots.
+     */
+    public AsyncOutputManager(int slotCount, int slotCapacity)
+    {
+        if(slotCount <= 0 || slotCapacity <= 0)
+            throw new IllegalArgumentException("The buffer sizes must be positive");
+        
+        int count = Integer.highestOneBit(slotCount - 1) << 1;
+        count = Math.max(2, count);
+        
+        this.table = new ConcurrentHashMap<>();
+        this.slotCapacity = slotCapacity;
+        this.mask = count - 1;
+        this.sequences = new AtomicLongArray(count);
+        this.slotChars = new char[count][];
+        this.slotLengths = new int[count];
+        this.slotKinds = new byte[count];
+        this.slotTargets = new MultiWriter[count];
+        this.tail = new AtomicLong();
+        this.barrierDone = -1;
+        
+        for(int i = 0; i < count; i++)
+            sequences.set(i, i);
+    }
+
+    @Override
+    public synchronized AsyncOutputManager init()
+    {
+        if(writerThread == null)
+        {
+            writerThread = new Thread(this::drainLoop, "optefx-output-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Claims the next slot of the ring buffer, waiting while it is full.
+     * @return The position of the slot.
+     */
+    private long claim()
+    {
+        if(writerThread == null)
+            init();
+        
+        long pos = tail.get();
+        
+        while(true)
+        {
+            long dif = sequences.get((int)pos & mask) - pos;
+            
+            if(dif == 0)
+            {
+                if(tail.compareAndSet(pos, pos + 1))
+                    return pos;
+                
+                pos = tail.get();
+            }
+            else if(dif < 0)
+            {
+                // Full buffer
+                LockSupport.unpark(writerThread);
+                LockSupport.parkNanos(10000);
+                pos = tail.get();
+            }
+            else
+            {
+                pos = tail.get();
+            }
+        }
+    }
+    
+    /**
+     * Gets the char buffer of a claimed slot. The buffers are allocated the
+     * first time their slots are claimed, and reused afterwards.
+     * @param idx The index of the slot.
+     * @return The buffer.
+     */
+    private char[] getSlotChars(int idx)
+    {
+        char[] res = slotChars[idx];
+        
+        if(res == null)
+        {
+            res = new char[slotCapacity];
+            slotChars[idx] = res;
+        }
+        
+        return res;
+    }
+    
+    /**
+     * Publishes a claimed slot to the writer thread.
+     */
+    private void publish(long pos, int idx, byte kind, MultiWriter target, int length)
+    {
+        slotKinds[idx] = kind;
+        slotTargets[idx] = target;
+        slotLengths[idx] = length;
+        // A volatile write, so the writer thread cannot miss the slot when it
+        // goes to sleep
+        sequences.set(idx, pos + 1);
+        
+        if(sleeping)
+            LockSupport.unpark(writerThread);
+    }
+    
+    /**
+     * The loop of the writer thread.
+     */
+    private void drainLoop()
+    {
+        ArrayList<MultiWriter> dirty = new ArrayList<>();
+        long head = 0;
+        
+        while(true)
+        {
+            int idx = (int)head & mask;
+            
+            if(sequences.get(idx) != head + 1)
+            {
+                flushAll(dirty);
+                sleeping = true;
+                
+                if(sequences.get(idx) != head + 1)
+                    LockSupport.park(this);
+                
+                sleeping = false;
+                continue;
+            }
+            
+            MultiWriter target = slotTargets[idx];
+            byte kind = slotKinds[idx];
+            
+            try
+            {
+                switch(kind)
+                {
+                    case KIND_WRITE :
+                    {
+                        target.write(slotChars[idx], 0, slotLengths[idx]);
+                        
+                        if(!dirty.contains(target))
+                            dirty.add(target);
+                        
+                        break;
+                    }
+                    case KIND_FLUSH :
+                    {
+                        target.flush();
+                        break;
+                    }
+                    case KIND_CLOSE :
+                    {
+                        dirty.remove(target);
+                        
+                        // Permanent writers are not flushed by close()
+                        try
+                        {
+                            target.flush();
+                        }
+                        finally
+                        {
+                            target.close();
+                        }
+                        
+                        break;
+                    }
+                    default :
+                    {
+                        flushAll(dirty);
+                        barrierDone = head;
+                    }
+                }
+            }
+            catch(IOException | RuntimeException ex)
+            {
+                if(error == null)
+                    error = ex;
+            }
+            
+            slotTargets[idx] = null;
+            sequences.lazySet(idx, head + mask + 1);
+            head++;
+        }
+    }
+    
+    private void flushAll(ArrayList<MultiWriter> dirty)
+    {
+        int count = dirty.size();
+        
+        for(int i = 0; i < count; i++)
+        {
+            try
+            {
+                dirty.get(i).flush();
+            }
+            catch(IOException | RuntimeException ex)
+            {
+                if(error == null)
+                    error = ex;
+            }
+        }
+        
+        dirty.clear();
+    }
+    
+    /**
+     * Waits until all the text printed before this call has been written and
+     * flushed by the writer thread.
+     */
+    public void drain()
+    {
+        long pos = claim();
+        publish(pos, (int)pos & mask, KIND_BARRIER, null, 0);
+        LockSupport.unpark(writerThread);
+        
+        while(barrierDone < pos)
+            LockSupport.parkNanos(50000);
+        
+        Throwable ex = error;
+        
+        if(ex != null)
+        {
+            error = null;
+            throw new RuntimeException("Error while writing the outputs", ex);
+        }
+    }
+    
+    private Channel getChannel(String id)
+    {
+        return table.computeIfAbsent(id, (key) -> new Channel());
+    }
+    
+    @Override
+    public AsyncOutputManager setOutputsFromConfig(OutputConfig config)
+    {
+        String[] ids = config.getIds();
+        
+        for(int i = 0; i < ids.length; i++)
+        {
+            String currId = ids[i];
+            MultiWriter writer = getChannel(currId).writer;
+            
+            if(config.isPersistent(currId))
+                writer.setPermanent();
+            
+            // The writer thread already flushes when the buffer becomes empty
+            FlushPolicy policy = config.getFlushPolicyFor(currId);
+            writer.setFlushPolicy(policy.getKind() == FlushPolicy.Kind.EVERY_WRITE ? FlushPolicy.manual() : policy);
+            writer.setWriterBuilders(config.getBuildersFor(currId));
+        }
+        
+        invalidateHandles();
+        return this;
+    }
+
+    /**
+     * Gets a handle that caches the output of an id, as this manager 
+     * invalidates the handles when its configuration changes.
+     * @param id The id of the output.
+     * @return The handle.
+     */
+    @Override
+    public OutputHandle getHandle(String id)
+    {
+        return new OutputHandle(this, id, true);
+    }
+
+    @Override
+    public PrintWriter getOutput(String id)
+    {
+        Channel channel = table.get(id);
+        return channel == null ? null : channel.printer;
+    }
+
+    @Override
+    public AsyncOutputManager closeOutputs()
+    {
+        for(Channel channel : table.values())
+            channel.close();
+        
+        drain();
+        return this;
+    }
+
+    @Override
+    public AsyncOutputManager closeOutputs(String id)
+    {
+        Channel channel = table.get(id);
+        
+        if(channel != null)
+        {
+            channel.close();
+            drain();
+        }
+        
+        return this;
+    }
+
+    @Override
+    public AsyncOutputManager clearOutputs()
+    {
+        table.values().removeIf((channel) -> !channel.writer.isPermanent());
+        invalidateHandles();
+        return this;
+    }
+
+    @Override
+    public AsyncOutputManager clearOutputs(String id)
+    {
+        Channel channel = table.get(id);
+        
+        if(channel != null && !channel.writer.isPermanent())
+        {
+            table.remove(id);
+            invalidateHandles();
+        }
+        
+        return this;
+    }
+}
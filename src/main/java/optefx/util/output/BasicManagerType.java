@@ -9,5 +9,6 @@ public enum BasicManagerType
 {
     DEFAULT,
     SINGLE_THREAD,
-    MULTI_THREAD
+    MULTI_THREAD,
+    ASYNC
 }
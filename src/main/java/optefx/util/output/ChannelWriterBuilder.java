@@ -0,0 +1,173 @@
+
+package optefx.util.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Builds high-throughput writers for files, based on a FileChannel. The text
+ * is encoded as UTF-8 into a reusable direct buffer, which is written to the
+ * channel when it is full or when the writer is flushed, so no objects are 
+ * created per write.
+ * 
+ * Optionally, the file can be extended in large extents ahead of the written
+ * data, which reduces the file system updates of files that grow to large 
+ * sizes. The file is truncated to the length of the written data when the
+ * writer is closed, so the preallocation cannot be used in persistent output
+ * ids, whose writers are never closed (see OutputConfig.makePersistent()).
+ * @author Enrique Urra C.
+ */
+public final class ChannelWriterBuilder implements WriterBuilder
+{
+    private static final class ChannelWriter extends EncodingWriter
+    {
+        private final FileChannel channel;
+        private final long extent;
+        private long position;
+        private long allocated;
+
+        public ChannelWriter(FileChannel channel, boolean append, int bufferSize, long extent) throws IOException
+        {
+            super(ByteBuffer.allocateDirect(bufferSize), bufferSize / 4);
+            this.channel = channel;
+            this.extent = extent;
+            this.position = append ? channel.size() : 0;
+            this.allocated = channel.size();
+        }
+
+        @Override
+        protected void drainBytes() throws IOException
+        {
+            bytes.flip();
+            int length = bytes.remaining();
+
+            if(extent > 0 && position + length > allocated)
+            {
+                allocated = Math.max(allocated, position + length) + extent;
+                channel.write(ByteBuffer.allocate(1), allocated - 1);
+            }
+
+            while(bytes.hasRemaining())
+                position += channel.write(bytes, position);
+
+            bytes.clear();
+        }
+
+        @Override
+        protected void flushBytes() throws IOException
+        {
+            drainBytes();
+        }
+
+        @Override
+        protected void closeBytes() throws IOException
+        {
+            try
+            {
+                drainBytes();
+
+                if(allocated > position)
+                    channel.truncate(position);
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+    }
+    
+    private Supplier<String> pathSupplier;
+    private boolean append;
+    private int bufferSize = 65536;
+    private long preallocation;
+
+    public ChannelWriterBuilder(String path)
+    {
+        this(() -> path);
+    }
+    
+    public ChannelWriterBuilder(Supplier<String> pathSupplier)
+    {
+        if(pathSupplier == null)
+            throw new NullPointerException("Null path");
+        
+        this.pathSupplier = pathSupplier;
+    }
+    
+    public ChannelWriterBuilder enableAppend(boolean enable)
+    {
+        this.append = enable;
+        return this;
+    }
+    
+    /**
+     * Sets the size of the direct buffer of the writers, in bytes.
+     * @param bufferSize The buffer size.
+     * @return This builder.
+     */
+    public ChannelWriterBuilder setBufferSize(int bufferSize)
+    {
+        if(bufferSize < 64)
+            throw new IllegalArgumentException("The buffer size must be at least 64 bytes");
+        
+        this.bufferSize = bufferSize;
+        return this;
+    }
+    
+    /**
+     * Sets the size of the extents in which the files are extended ahead of 
+     * the written data.
+     * @param extent The extent size in bytes, or zero to disable the 
+     * preallocation.
+     * @return This builder.
+     */
+    public ChannelWriterBuilder setPreallocation(long extent)
+    {
+        if(extent < 0)
+            throw new IllegalArgumentException("The extent size cannot be negative");
+        
+        this.preallocation = extent;
+        return this;
+    }
+
+    @Override
+    public boolean requiresClose()
+    {
+        return preallocation > 0;
+    }
+
+    @Override
+    public Writer build() throws IOException
+    {
+        String path = pathSupplier.get();
+        File file = new File(path);
+        File dir = file.getParentFile();
+        
+        if(dir != null)
+        {
+            dir.mkdirs();
+        
+            if(!dir.exists())
+                throw new IOException("Cannot generate directories for the path '" + path + "'");
+        }
+        
+        FileChannel channel = append ? 
+            FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE) :
+            FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        
+        try
+        {
+            return new ChannelWriter(channel, append, bufferSize, preallocation);
+        }
+        catch(IOException ex)
+        {
+            channel.close();
+            throw ex;
+        }
+    }
+}
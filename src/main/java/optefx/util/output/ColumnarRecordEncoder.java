@@ -0,0 +1,235 @@
+
+package optefx.util.output;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Implements a record encoder that stores the records in a compact binary
+ * columnar format. The records are accumulated in blocks, and the values of
+ * each block are written column by column:
+ * 
+ * - Header: the magic number 0x4F524342, the version (short), the amount of 
+ *   columns (int) and, for each column, its type (byte) and name (UTF).
+ * - Blocks: the amount of records (int) followed by the data of each column.
+ *   Ints use 4 bytes, longs and doubles use 8 bytes, booleans use a bitset of
+ *   (records + 7) / 8 bytes and strings use their UTF-8 length (int, -1 for 
+ *   null) followed by their bytes. All the values are big-endian.
+ * - End: a block with zero records.
+ * 
+ * The files can be read through ColumnarRecordReader.
+ * @author Enrique Urra C.
+ */
+public final class ColumnarRecordEncoder implements RecordEncoder
+{
+    static final int MAGIC = 0x4F524342;
+    static final short VERSION = 1;
+    
+    private final DataOutputStream out;
+    private final int blockSize;
+    private RecordSchema.Type[] types;
+    private int[][] ints;
+    private long[][] longs;
+    private double[][] doubles;
+    private boolean[][] booleans;
+    private String[][] strings;
+    private ByteBuffer scratch;
+    private int rows;
+
+    public ColumnarRecordEncoder(OutputStream out)
+    {
+        this(out, 4096);
+    }
+    
+    /**
+     * Creates the encoder.
+     * @param out The stream to write, which is closed with the encoder.
+     * @param blockSize The amount of records of each block.
+     */
+    public ColumnarRecordEncoder(OutputStream out, int blockSize)
+    {
+        if(out == null)
+            throw new NullPointerException("Null output stream");
+        
+        if(blockSize <= 0)
+            throw new IllegalArgumentException("The block size must be positive");
+        
+        this.out = new DataOutputStream(out);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void begin(RecordSchema schema) throws IOException
+    {
+        int count = schema.getColumnCount();
+        types = new RecordSchema.Type[count];
+        ints = new int[count][];
+        longs = new long[count][];
+        doubles = new double[count][];
+        booleans = new boolean[count][];
+        strings = new String[count][];
+        scratch = ByteBuffer.allocate(blockSize * 8);
+        
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(count);
+        
+        for(int i = 0; i < count; i++)
+        {
+            types[i] = schema.getType(i);
+            out.writeByte(types[i].ordinal());
+            out.writeUTF(schema.getName(i));
+            
+            switch(types[i])
+            {
+                case INT: ints[i] = new int[blockSize]; break;
+                case LONG: longs[i] = new long[blockSize]; break;
+                case DOUBLE: doubles[i] = new double[blockSize]; break;
+                case BOOLEAN: booleans[i] = new boolean[blockSize]; break;
+                default: strings[i] = new String[blockSize]; break;
+            }
+        }
+    }
+
+    @Override
+    public void putInt(int column, int value)
+    {
+        ints[column][rows] = value;
+    }
+
+    @Override
+    public void putLong(int column, long value)
+    {
+        longs[column][rows] = value;
+    }
+
+    @Override
+    public void putDouble(int column, double value)
+    {
+        doubles[column][rows] = value;
+    }
+
+    @Override
+    public void putBoolean(int column, boolean value)
+    {
+        booleans[column][rows] = value;
+    }
+
+    @Override
+    public void putString(int column, CharSequence value)
+    {
+        strings[column][rows] = value == null ? null : value.toString();
+    }
+
+    @Override
+    public void endRecord() throws IOException
+    {
+        if(++rows == blockSize)
+            writeBlock();
+    }
+    
+    private void writeScratch() throws IOException
+    {
+        out.write(scratch.array(), 0, scratch.position());
+        scratch.clear();
+    }
+    
+    private void writeBlock() throws IOException
+    {
+        if(rows == 0)
+            return;
+        
+        out.writeInt(rows);
+        
+        for(int i = 0; i < types.length; i++)
+        {
+            switch(types[i])
+            {
+                case INT:
+                    scratch.asIntBuffer().put(ints[i], 0, rows);
+                    scratch.position(rows * 4);
+                    writeScratch();
+                    break;
+                    
+                case LONG:
+                    scratch.asLongBuffer().put(longs[i], 0, rows);
+                    scratch.position(rows * 8);
+                    writeScratch();
+                    break;
+                    
+                case DOUBLE:
+                    scratch.asDoubleBuffer().put(doubles[i], 0, rows);
+                    scratch.position(rows * 8);
+                    writeScratch();
+                    break;
+                    
+                case BOOLEAN:
+                    boolean[] values = booleans[i];
+                    
+                    for(int j = 0; j < rows; j += 8)
+                    {
+                        int bits = 0;
+                        int end = Math.min(rows, j + 8);
+                        
+                        for(int k = j; k < end; k++)
+                        {
+                            if(values[k])
+                                bits |= 1 << (k - j);
+                        }
+                        
+                        scratch.put((byte)bits);
+                    }
+                    
+                    writeScratch();
+                    break;
+                    
+                default:
+                    String[] column = strings[i];
+                    
+                    for(int j = 0; j < rows; j++)
+                    {
+                        if(column[j] == null)
+                        {
+                            out.writeInt(-1);
+                            continue;
+                        }
+                        
+                        byte[] bytes = column[j].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                        column[j] = null;
+                    }
+            }
+        }
+        
+        rows = 0;
+    }
+
+    /**
+     * Writes the pending records as a block, and flushes the stream. Frequent
+     * flushes produce small blocks, which are less compact.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            writeBlock();
+            out.writeInt(0);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
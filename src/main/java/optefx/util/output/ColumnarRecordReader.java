@@ -0,0 +1,255 @@
+
+package optefx.util.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the records stored by a ColumnarRecordEncoder, one block at a time. 
+ * The values of the current record are accessed by column index, through the
+ * getter of the column type. If the file was not properly closed, the records
+ * of its last complete block are read.
+ * @author Enrique Urra C.
+ */
+public final class ColumnarRecordReader implements Closeable
+{
+    private final DataInputStream in;
+    private final RecordSchema schema;
+    private final RecordSchema.Type[] types;
+    private final int[][] ints;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final boolean[][] booleans;
+    private final String[][] strings;
+    private byte[] scratch = new byte[0];
+    private int rows;
+    private int row;
+    private boolean finished;
+
+    public ColumnarRecordReader(String path) throws IOException
+    {
+        this(new BufferedInputStream(new FileInputStream(path), 65536));
+    }
+    
+    /**
+     * Creates the reader, reading the header of the stream.
+     * @param in The stream to read, which is closed with the reader.
+     * @throws IOException If the header cannot be read.
+     */
+    public ColumnarRecordReader(InputStream in) throws IOException
+    {
+        if(in == null)
+            throw new NullPointerException("Null input stream");
+        
+        this.in = new DataInputStream(in);
+        
+        if(this.in.readInt() != ColumnarRecordEncoder.MAGIC)
+            throw new IOException("The stream does not contain columnar records");
+        
+        short version = this.in.readShort();
+        
+        if(version != ColumnarRecordEncoder.VERSION)
+            throw new IOException("Unsupported version: " + version);
+        
+        int count = this.in.readInt();
+        RecordSchema.Type[] allTypes = RecordSchema.Type.values();
+        schema = new RecordSchema();
+        types = new RecordSchema.Type[count];
+        ints = new int[count][];
+        longs = new long[count][];
+        doubles = new double[count][];
+        booleans = new boolean[count][];
+        strings = new String[count][];
+        
+        for(int i = 0; i < count; i++)
+        {
+            int type = this.in.readUnsignedByte();
+            
+            if(type >= allTypes.length)
+                throw new IOException("Invalid column type: " + type);
+            
+            types[i] = allTypes[type];
+            schema.addColumn(this.in.readUTF(), types[i]);
+        }
+    }
+
+    public RecordSchema getSchema()
+    {
+        return schema;
+    }
+    
+    private ByteBuffer readBytes(int length) throws IOException
+    {
+        if(scratch.length < length)
+            scratch = new byte[length];
+        
+        in.readFully(scratch, 0, length);
+        return ByteBuffer.wrap(scratch, 0, length);
+    }
+    
+    private void readBlock() throws IOException
+    {
+        int count;
+        
+        try
+        {
+            count = in.readInt();
+        }
+        catch(EOFException ex)
+        {
+            count = 0;
+        }
+        
+        if(count < 0)
+            throw new IOException("Invalid block size: " + count);
+        
+        rows = count;
+        row = -1;
+        
+        if(count == 0)
+        {
+            finished = true;
+            return;
+        }
+        
+        try
+        {
+            for(int i = 0; i < types.length; i++)
+            {
+                switch(types[i])
+                {
+                    case INT:
+                        if(ints[i] == null || ints[i].length < count)
+                            ints[i] = new int[count];
+                    
+                        readBytes(count * 4).asIntBuffer().get(ints[i], 0, count);
+                        break;
+                    
+                    case LONG:
+                        if(longs[i] == null || longs[i].length < count)
+                            longs[i] = new long[count];
+                    
+                        readBytes(count * 8).asLongBuffer().get(longs[i], 0, count);
+                        break;
+                    
+                    case DOUBLE:
+                        if(doubles[i] == null || doubles[i].length < count)
+                            doubles[i] = new double[count];
+                    
+                        readBytes(count * 8).asDoubleBuffer().get(doubles[i], 0, count);
+                        break;
+                    
+                    case BOOLEAN:
+                        if(booleans[i] == null || booleans[i].length < count)
+                            booleans[i] = new boolean[count];
+                    
+                        readBytes((count + 7) / 8);
+                    
+                        for(int j = 0; j < count; j++)
+                            booleans[i][j] = (scratch[j >>> 3] & (1 << (j & 7))) != 0;
+                    
+                        break;
+                    
+                    default:
+                        if(strings[i] == null || strings[i].length < count)
+                            strings[i] = new String[count];
+                    
+                        for(int j = 0; j < count; j++)
+                        {
+                            int length = in.readInt();
+                        
+                            if(length < 0)
+                            {
+                                strings[i][j] = null;
+                                continue;
+                            }
+                        
+                            readBytes(length);
+                            strings[i][j] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                        }
+                }
+            }
+        }
+        catch(EOFException ex)
+        {
+            // Incomplete last block of a file that was not closed
+            rows = 0;
+            finished = true;
+        }
+    }
+    
+    /**
+     * Moves to the next record.
+     * @return true if there is a record, false if the end was reached.
+     * @throws IOException If the stream cannot be read.
+     */
+    public boolean next() throws IOException
+    {
+        if(finished)
+            return false;
+        
+        if(++row >= rows)
+        {
+            readBlock();
+            
+            if(finished)
+                return false;
+            
+            row = 0;
+        }
+        
+        return true;
+    }
+    
+    private void checkColumn(int column, RecordSchema.Type type)
+    {
+        if(row < 0 || row >= rows)
+            throw new IllegalStateException("There is no current record");
+        
+        if(types[column] != type)
+            throw new IllegalStateException("The column '" + schema.getName(column) + "' is of type " + types[column] + ", not " + type);
+    }
+    
+    public int getInt(int column)
+    {
+        checkColumn(column, RecordSchema.Type.INT);
+        return ints[column][row];
+    }
+    
+    public long getLong(int column)
+    {
+        checkColumn(column, RecordSchema.Type.LONG);
+        return longs[column][row];
+    }
+    
+    public double getDouble(int column)
+    {
+        checkColumn(column, RecordSchema.Type.DOUBLE);
+        return doubles[column][row];
+    }
+    
+    public boolean getBoolean(int column)
+    {
+        checkColumn(column, RecordSchema.Type.BOOLEAN);
+        return booleans[column][row];
+    }
+    
+    public String getString(int column)
+    {
+        checkColumn(column, RecordSchema.Type.STRING);
+        return strings[column][row];
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+}
@@ -0,0 +1,418 @@
+
+package optefx.util.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds writers that compress their text into a file, in the gzip or zlib
+ * (deflate) format. The text is encoded as UTF-8 into blocks, which are 
+ * passed through a bounded queue to a background thread that compresses and
+ * writes them. Therefore, the writing thread only copies the text into the
+ * current block, and it only waits when all the blocks are pending.
+ * 
+ * As flushing a compressed stream degrades the compression, the background 
+ * thread flushes the stream at most once per flush interval (one second by 
+ * default). A flush requested within the interval is deferred until the 
+ * interval ends, so the flushed text can always be decompressed after at most
+ * one interval. When the writer is closed, it waits until the background 
+ * thread has written the remaining blocks.
+ * 
+ * The writers of persistent output ids are never closed, so their files lack
+ * the end of the compressed stream. Their text can be decompressed up to the
+ * last flush, although the decompressors report the file as truncated.
+ * 
+ * The appending is only supported by the gzip format, in which case a new 
+ * gzip member is added to the file.
+ * @author Enrique Urra C.
+ */
+public final class CompressedWriterBuilder implements WriterBuilder
+{
+    public enum Format
+    {
+        GZIP,
+        DEFLATE
+    }
+    
+    /**
+     * Implements a gzip stream with a custom compression level.
+     */
+    private static final class GzipStream extends GZIPOutputStream
+    {
+        public GzipStream(OutputStream out, int level) throws IOException
+        {
+            super(out, 65536, true);
+            def.setLevel(level);
+        }
+    }
+    
+    private static final class CompressedWriter extends EncodingWriter implements Runnable
+    {
+        private static final ByteBuffer FLUSH = ByteBuffer.allocate(0);
+        private static final ByteBuffer CLOSE = ByteBuffer.allocate(0);
+        
+        private final OutputStream out;
+        private final Deflater deflater;
+        private final ArrayBlockingQueue<ByteBuffer> pending;
+        private final ArrayBlockingQueue<ByteBuffer> free;
+        private final int blockSize;
+        private final int blockCount;
+        private final long flushInterval;
+        private final Thread thread;
+        private int allocated;
+        private boolean flushQueued;
+        private volatile IOException error;
+
+        public CompressedWriter(OutputStream out, Deflater deflater, int blockSize, int blockCount, long flushInterval, String name)
+        {
+            super(ByteBuffer.allocate(blockSize), 8192);
+            this.out = out;
+            this.deflater = deflater;
+            this.pending = new ArrayBlockingQueue<>(blockCount + 2);
+            this.free = new ArrayBlockingQueue<>(blockCount);
+            this.blockSize = blockSize;
+            this.blockCount = blockCount;
+            this.flushInterval = flushInterval;
+            this.allocated = 1;
+            this.thread = new Thread(this, "optefx-compress-" + name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+        
+        private void checkError() throws IOException
+        {
+            IOException ex = error;
+            
+            if(ex != null)
+                throw new IOException("Error while compressing the output", ex);
+        }
+        
+        private void enqueue(ByteBuffer block) throws IOException
+        {
+            try
+            {
+                pending.put(block);
+            }
+            catch(InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the compression");
+            }
+        }
+        
+        /**
+         * Passes the current block to the background thread, and obtains an
+         * empty block.
+         */
+        private void handOver() throws IOException
+        {
+            checkError();
+            
+            if(bytes.position() == 0)
+                return;
+            
+            enqueue(bytes);
+            flushQueued = false;
+            ByteBuffer next = free.poll();
+            
+            if(next == null)
+            {
+                if(allocated < blockCount)
+                {
+                    allocated++;
+                    next = ByteBuffer.allocate(blockSize);
+                }
+                else
+                {
+                    try
+                    {
+                        next = free.take();
+                    }
+                    catch(InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the compression");
+                    }
+                }
+            }
+            
+            bytes = next;
+        }
+
+        @Override
+        protected void drainBytes() throws IOException
+        {
+            handOver();
+        }
+
+        /**
+         * Passes the current block to the background thread, followed by a
+         * flush request, unless no block has been passed since the last
+         * request. The background thread decides when the flush is performed.
+         */
+        @Override
+        protected void flushBytes() throws IOException
+        {
+            handOver();
+            
+            if(!flushQueued)
+            {
+                enqueue(FLUSH);
+                flushQueued = true;
+            }
+        }
+
+        @Override
+        protected void closeBytes() throws IOException
+        {
+            try
+            {
+                handOver();
+            }
+            finally
+            {
+                enqueue(CLOSE);
+                
+                try
+                {
+                    thread.join();
+                }
+                catch(InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the compression");
+                }
+            }
+            
+            checkError();
+        }
+
+        /**
+         * Compresses the blocks in the order they are passed. A flush request
+         * is performed when the flush interval has elapsed since the last
+         * flush. Otherwise, it is deferred, and the next block is waited only
+         * until the end of the interval.
+         */
+        @Override
+        public void run()
+        {
+            long lastFlush = System.currentTimeMillis();
+            boolean deferred = false;
+            
+            try
+            {
+                while(true)
+                {
+                    ByteBuffer block = deferred ? 
+                        pending.poll(lastFlush + flushInterval - System.currentTimeMillis(), TimeUnit.MILLISECONDS) : 
+                        pending.take();
+                    
+                    if(block == CLOSE)
+                        break;
+                    
+                    try
+                    {
+                        if(block == null || block == FLUSH)
+                        {
+                            long now = System.currentTimeMillis();
+                            deferred = now - lastFlush < flushInterval;
+                            
+                            if(!deferred && error == null)
+                            {
+                                out.flush();
+                                lastFlush = now;
+                            }
+                        }
+                        else if(error == null)
+                        {
+                            out.write(block.array(), 0, block.position());
+                        }
+                    }
+                    catch(IOException ex)
+                    {
+                        error = ex;
+                    }
+                    finally
+                    {
+                        if(block != null && block != FLUSH)
+                        {
+                            block.clear();
+                            free.offer(block);
+                        }
+                    }
+                }
+            }
+            catch(InterruptedException ex)
+            {
+                error = new InterruptedIOException("The compression thread has been interrupted");
+            }
+            finally
+            {
+                try
+                {
+                    out.close();
+                }
+                catch(IOException ex)
+                {
+                    if(error == null)
+                        error = ex;
+                }
+                finally
+                {
+                    // The deflater of the gzip stream is ended by the stream
+                    if(deflater != null)
+                        deflater.end();
+                }
+            }
+        }
+    }
+    
+    private Supplier<String> pathSupplier;
+    private Format format = Format.GZIP;
+    private boolean append;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int blockSize = 65536;
+    private int blockCount = 8;
+    private long flushInterval = 1000;
+
+    public CompressedWriterBuilder(String path)
+    {
+        this(() -> path);
+    }
+    
+    public CompressedWriterBuilder(Supplier<String> pathSupplier)
+    {
+        if(pathSupplier == null)
+            throw new NullPointerException("Null path");
+        
+        this.pathSupplier = pathSupplier;
+    }
+    
+    public CompressedWriterBuilder setFormat(Format format)
+    {
+        if(format == null)
+            throw new NullPointerException("Null format");
+        
+        this.format = format;
+        return this;
+    }
+    
+    public CompressedWriterBuilder enableAppend(boolean enable)
+    {
+        this.append = enable;
+        return this;
+    }
+    
+    /**
+     * Sets the compression level.
+     * @param level The level, from 0 (no compression) to 9 (best compression),
+     * or -1 for the default level of the deflater.
+     * @return This builder.
+     */
+    public CompressedWriterBuilder setLevel(int level)
+    {
+        if(level < -1 || level > 9)
+            throw new IllegalArgumentException("The compression level must be in the range [-1, 9]");
+        
+        this.level = level;
+        return this;
+    }
+    
+    /**
+     * Sets the size of the blocks passed to the background thread.
+     * @param blockSize The size in bytes.
+     * @return This builder.
+     */
+    public CompressedWriterBuilder setBlockSize(int blockSize)
+    {
+        if(blockSize < 1024)
+            throw new IllegalArgumentException("The block size must be at least 1024");
+        
+        this.blockSize = blockSize;
+        return this;
+    }
+    
+    /**
+     * Sets the maximum amount of blocks of each writer, which bounds the text
+     * that can be pending for compression.
+     * @param blockCount The amount of blocks, at least 2.
+     * @return This builder.
+     */
+    public CompressedWriterBuilder setBlockCount(int blockCount)
+    {
+        if(blockCount < 2)
+            throw new IllegalArgumentException("The block count must be at least 2");
+        
+        this.blockCount = blockCount;
+        return this;
+    }
+    
+    /**
+     * Sets the minimum time between two flushes of the compressed stream.
+     * @param flushInterval The time in milliseconds, or 0 to perform all the 
+     * flushes.
+     * @return This builder.
+     */
+    public CompressedWriterBuilder setFlushInterval(long flushInterval)
+    {
+        if(flushInterval < 0)
+            throw new IllegalArgumentException("The flush interval cannot be negative");
+        
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    @Override
+    public Writer build() throws IOException
+    {
+        if(append && format != Format.GZIP)
+            throw new IllegalStateException("The appending is only supported by the gzip format");
+        
+        String path = pathSupplier.get();
+        File file = new File(path);
+        File dir = file.getParentFile();
+        
+        if(dir != null)
+        {
+            dir.mkdirs();
+        
+            if(!dir.exists())
+                throw new IOException("Cannot generate directories for the path '" + path + "'");
+        }
+        
+        FileOutputStream fileStream = new FileOutputStream(file, append);
+        Deflater deflater = null;
+        OutputStream out;
+        
+        try
+        {
+            if(format == Format.GZIP)
+            {
+                out = new GzipStream(fileStream, level);
+            }
+            else
+            {
+                deflater = new Deflater(level);
+                out = new DeflaterOutputStream(fileStream, deflater, 65536, true);
+            }
+        }
+        catch(IOException ex)
+        {
+            fileStream.close();
+            throw ex;
+        }
+        
+        return new CompressedWriter(out, deflater, blockSize, blockCount, flushInterval, file.getName());
+    }
+}
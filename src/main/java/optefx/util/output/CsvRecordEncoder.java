@@ -0,0 +1,445 @@
+
+package optefx.util.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Implements a record encoder that prints each record as a CSV line. The 
+ * numbers are formatted directly into a reusable char buffer, so no strings
+ * are created for them, and each line is passed to the writer in a single 
+ * call. The doubles are printed with a fixed amount of significant digits
+ * (15 by default), correctly rounded and omitting the trailing zeros, so the
+ * doubles printed with 17 digits are parsed back to the same values. Up to 15
+ * digits, the rounding is computed in floating-point arithmetic, and only the
+ * values too close to a rounding tie are rounded through a BigDecimal object.
+ * The strings are quoted when they contain the separator, quotes or line 
+ * breaks.
+ * 
+ * The first line contains the names of the columns, unless the header is
+ * disabled before the encoder is used.
+ * @author Enrique Urra C.
+ */
+public final class CsvRecordEncoder implements RecordEncoder
+{
+    private static final double[] POW10 = new double[23];
+    private static final long[] POW10L = new long[19];
+    private static final int MAX_FAST_PRECISION = 15;
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+    
+    static
+    {
+        POW10[0] = 1.0;
+        POW10L[0] = 1L;
+        
+        for(int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i - 1] * 10.0;
+        
+        for(int i = 1; i < POW10L.length; i++)
+            POW10L[i] = POW10L[i - 1] * 10L;
+    }
+    
+    private final Writer out;
+    private char separator = ',';
+    private int precision = 15;
+    private boolean header = true;
+    private char[] buffer = new char[256];
+    private int length;
+    private int exponent;
+
+    public CsvRecordEncoder(Writer out)
+    {
+        if(out == null)
+            throw new NullPointerException("Null writer");
+        
+        this.out = out;
+    }
+    
+    public CsvRecordEncoder setSeparator(char separator)
+    {
+        if(separator == '"' || separator == '\n' || separator == '\r')
+            throw new IllegalArgumentException("Invalid separator");
+        
+        this.separator = separator;
+        return this;
+    }
+    
+    /**
+     * Sets the amount of significant digits of the doubles. With 17 digits,
+     * every double is printed with enough digits to parse it back.
+     * @param precision The amount of digits, between 1 and 17.
+     * @return This encoder.
+     */
+    public CsvRecordEncoder setPrecision(int precision)
+    {
+        if(precision < 1 || precision > 17)
+            throw new IllegalArgumentException("The precision must be between 1 and 17");
+        
+        this.precision = precision;
+        return this;
+    }
+    
+    public CsvRecordEncoder enableHeader(boolean header)
+    {
+        this.header = header;
+        return this;
+    }
+    
+    private void ensure(int extra)
+    {
+        if(length + extra > buffer.length)
+        {
+            char[] newBuffer = new char[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+    
+    private void appendSeparator(int column)
+    {
+        if(column > 0)
+        {
+            ensure(1);
+            buffer[length++] = separator;
+        }
+    }
+    
+    private void appendChars(String str)
+    {
+        int size = str.length();
+        ensure(size);
+        str.getChars(0, size, buffer, length);
+        length += size;
+    }
+    
+    private void appendQuoted(CharSequence str)
+    {
+        int size = str.length();
+        boolean quote = false;
+        
+        for(int i = 0; i < size && !quote; i++)
+        {
+            char c = str.charAt(i);
+            quote = c == separator || c == '"' || c == '\n' || c == '\r';
+        }
+        
+        if(!quote)
+        {
+            ensure(size);
+            
+            for(int i = 0; i < size; i++)
+                buffer[length++] = str.charAt(i);
+            
+            return;
+        }
+        
+        ensure(size * 2 + 2);
+        buffer[length++] = '"';
+        
+        for(int i = 0; i < size; i++)
+        {
+            char c = str.charAt(i);
+            
+            if(c == '"')
+                buffer[length++] = '"';
+            
+            buffer[length++] = c;
+        }
+        
+        buffer[length++] = '"';
+    }
+    
+    /**
+     * Appends the digits of a non-negative long, left-padded with zeros up to
+     * the provided amount of digits.
+     */
+    private void appendDigits(long value, int digits)
+    {
+        ensure(digits);
+        int end = length + digits;
+        
+        for(int i = end - 1; i >= length; i--)
+        {
+            buffer[i] = (char)('0' + value % 10);
+            value /= 10;
+        }
+        
+        length = end;
+    }
+    
+    private static int digitCount(long value)
+    {
+        int digits = 1;
+        
+        while(digits < 19 && value >= POW10L[digits])
+            digits++;
+        
+        return digits;
+    }
+    
+    private void appendLong(long value)
+    {
+        if(value == Long.MIN_VALUE)
+        {
+            appendChars("-9223372036854775808");
+            return;
+        }
+        
+        if(value < 0)
+        {
+            ensure(1);
+            buffer[length++] = '-';
+            value = -value;
+        }
+        
+        appendDigits(value, digitCount(value));
+    }
+    
+    /**
+     * Multiplies a value by 10^k. Negative exponents are applied as divisions
+     * by exact powers of ten, so each step is a single correctly rounded 
+     * operation. A step is performed for each 22 units of the exponent.
+     */
+    private static double scale(double value, int k)
+    {
+        if(k >= 0)
+        {
+            while(k > 22)
+            {
+                value *= 1e22;
+                k -= 22;
+            }
+            
+            return value * POW10[k];
+        }
+        
+        k = -k;
+        
+        while(k > 22)
+        {
+            value /= 1e22;
+            k -= 22;
+        }
+        
+        return value / POW10[k];
+    }
+    
+    /**
+     * Rounds a positive value to the amount of significant digits. The value
+     * is scaled by a power of ten in floating-point arithmetic, which is only
+     * accepted when its error cannot change the rounding. Otherwise, the 
+     * exact value is rounded through a BigDecimal object.
+     * @param value The value.
+     * @return The digits, as a long of exactly precision digits. The decimal 
+     * exponent of the first digit is stored in the exponent field.
+     */
+    private long round(double value)
+    {
+        if(precision <= MAX_FAST_PRECISION)
+        {
+            int exp = (int)Math.floor(Math.log10(value));
+            double scaled = scale(value, precision - 1 - exp);
+            
+            // The logarithm can be off by one near the powers of ten
+            if(scaled >= POW10[precision])
+            {
+                exp++;
+                scaled = scale(value, precision - 1 - exp);
+            }
+            else if(scaled < POW10[precision - 1])
+            {
+                exp--;
+                scaled = scale(value, precision - 1 - exp);
+            }
+            
+            // Each scaling step adds at most half an ulp of error
+            int steps = 1 + (Math.abs(precision - 1 - exp) - 1) / 22;
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            
+            if(Math.abs(fraction - 0.5) > steps * Math.ulp(scaled))
+            {
+                long mantissa = (long)floor + (fraction > 0.5 ? 1 : 0);
+                
+                if(mantissa == POW10L[precision])
+                {
+                    exp++;
+                    mantissa /= 10;
+                }
+                
+                exponent = exp;
+                return mantissa;
+            }
+        }
+        
+        BigDecimal rounded = new BigDecimal(value).round(new MathContext(precision, RoundingMode.HALF_EVEN));
+        long mantissa = rounded.unscaledValue().longValue();
+        int digits = digitCount(mantissa);
+        exponent = digits - 1 - rounded.scale();
+        return mantissa * POW10L[precision - digits];
+    }
+    
+    private void appendDouble(double value)
+    {
+        if(Double.isNaN(value))
+        {
+            appendChars("NaN");
+            return;
+        }
+        
+        if(Double.isInfinite(value))
+        {
+            appendChars(value > 0 ? "Infinity" : "-Infinity");
+            return;
+        }
+        
+        ensure(precision + 10);
+        
+        if(value == 0.0)
+        {
+            buffer[length++] = '0';
+            return;
+        }
+        
+        if(value < 0)
+        {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        
+        long mantissa = round(value);
+        int exp = exponent;
+        int digits = precision;
+        
+        while(digits > 1 && mantissa % 10 == 0)
+        {
+            mantissa /= 10;
+            digits--;
+        }
+        
+        if(exp < -5 || exp >= precision)
+        {
+            // Scientific notation, d.dddE[-]x
+            long first = mantissa / POW10L[digits - 1];
+            buffer[length++] = (char)('0' + first);
+            
+            if(digits > 1)
+            {
+                buffer[length++] = '.';
+                appendDigits(mantissa - first * POW10L[digits - 1], digits - 1);
+            }
+            
+            buffer[length++] = 'E';
+            appendLong(exp);
+        }
+        else if(exp >= digits - 1)
+        {
+            appendDigits(mantissa, digits);
+            
+            for(int i = digits - 1; i < exp; i++)
+                buffer[length++] = '0';
+        }
+        else if(exp >= 0)
+        {
+            long divisor = POW10L[digits - 1 - exp];
+            appendDigits(mantissa / divisor, exp + 1);
+            buffer[length++] = '.';
+            appendDigits(mantissa % divisor, digits - 1 - exp);
+        }
+        else
+        {
+            buffer[length++] = '0';
+            buffer[length++] = '.';
+            
+            for(int i = -1; i > exp; i--)
+                buffer[length++] = '0';
+            
+            appendDigits(mantissa, digits);
+        }
+    }
+
+    @Override
+    public void begin(RecordSchema schema) throws IOException
+    {
+        if(!header)
+            return;
+        
+        int count = schema.getColumnCount();
+        
+        for(int i = 0; i < count; i++)
+        {
+            appendSeparator(i);
+            appendQuoted(schema.getName(i));
+        }
+        
+        endRecord();
+    }
+
+    @Override
+    public void putInt(int column, int value)
+    {
+        appendSeparator(column);
+        appendLong(value);
+    }
+
+    @Override
+    public void putLong(int column, long value)
+    {
+        appendSeparator(column);
+        appendLong(value);
+    }
+
+    @Override
+    public void putDouble(int column, double value)
+    {
+        appendSeparator(column);
+        appendDouble(value);
+    }
+
+    @Override
+    public void putBoolean(int column, boolean value)
+    {
+        appendSeparator(column);
+        appendChars(value ? "true" : "false");
+    }
+
+    @Override
+    public void putString(int column, CharSequence value)
+    {
+        appendSeparator(column);
+        
+        if(value != null)
+            appendQuoted(value);
+    }
+
+    @Override
+    public void endRecord() throws IOException
+    {
+        ensure(LINE_SEPARATOR.length);
+        
+        for(char c : LINE_SEPARATOR)
+            buffer[length++] = c;
+        
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+     * Flushes the writer, which is not closed, as it belongs to the output 
+     * manager.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        out.flush();
+    }
+}
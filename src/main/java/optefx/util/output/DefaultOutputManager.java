@@ -3,9 +3,8 @@ package optefx.util.output;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.Writer;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -13,99 +12,28 @@ import java.util.Map;
  * @author Enrique Urra C.
  */
 public class DefaultOutputManager extends OutputManager
-{  
-    private class MultiWriter extends Writer
+{
+    /**
+     * Maintains the writer of an id and its print wrapper, so both are 
+     * obtained with a single search.
+     */
+    private static final class Entry
     {
-        private Writer[] writers = new Writer[0];
-        private WriterBuilder[] builders;
-        private boolean initialized;
-        private boolean permanent;
+        public final MultiWriter writer;
+        public final PrintWriter printer;
 
-        public void setPermanent()
+        public Entry()
         {
-            this.permanent = true;
-        }
-
-        public boolean isPermanent()
-        {
-            return permanent;
-        }
-        
-        public synchronized void setWriterBuilders(WriterBuilder[] builders)
-        {
-            if(builders == null)
-                throw new NullPointerException("Null builders array");
-            
-            WriterBuilder[] newBuilders = new WriterBuilder[builders.length];
-
-            for(int i = 0; i < builders.length; i++)
-            {
-                if(builders[i] == null)
-                   throw new NullPointerException("Null builders at position " + i);
-
-                newBuilders[i] = builders[i];
-            }
-
-            this.builders = newBuilders;
-        }
-        
-        private synchronized void checkInitialized() throws IOException
-        {
-            if(!initialized && builders != null)
-            {
-                writers = new Writer[builders.length];
-                
-                for(int i = 0; i < builders.length; i++)
-                {
-                    WriterBuilder currBuilder = builders[i];
-                    writers[i] = currBuilder.build();
-                }
-                
-                initialized = true;
-            }
-        }
-
-        @Override
-        public void write(char[] chars, int i, int i1) throws IOException
-        {
-            checkInitialized();
-            
-            for(int j = 0; j < writers.length; j++)
-            {
-                writers[j].write(chars, i, i1);
-                writers[j].flush();
-            }
-        }
-
-        @Override
-        public void flush() throws IOException
-        {
-            checkInitialized();
-            
-            for(int i = 0; i < writers.length; i++)
-                writers[i].flush();
-        }
-
-        @Override
-        public void close() throws IOException
-        {
-            checkInitialized();
-            
-            if(permanent)
-                return;
-
-            for(int i = 0; i < writers.length; i++)
-                writers[i].close();
+            this.writer = new MultiWriter();
+            this.printer = new PrintWriter(writer);
         }
     }
     
-    private Map<String, MultiWriter> table;
-    private Map<MultiWriter, PrintWriter> wrappers;
+    private Map<String, Entry> table;
 
     public DefaultOutputManager()
     {
         this.table = new HashMap<>();
-        this.wrappers = new HashMap<>();
     }
 
     @Override
@@ -114,24 +42,17 @@ public class DefaultOutputManager extends OutputManager
         return this;
     }
     
-    private void addWrapper(MultiWriter writer)
-    {
-        PrintWriter pw = new PrintWriter(writer);
-        wrappers.put(writer, pw);
-    }
-    
     private MultiWriter getWriter(String id)
     {
-        MultiWriter writer = table.get(id);
+        Entry entry = table.get(id);
             
-        if(writer == null)
+        if(entry == null)
         {
-            writer = new MultiWriter();
-            addWrapper(writer);
-            table.put(id, writer);
+            entry = new Entry();
+            table.put(id, entry);
         }
         
-        return writer;
+        return entry.writer;
     }
     
     @Override
@@ -147,22 +68,31 @@ public class DefaultOutputManager extends OutputManager
             if(config.isPersistent(currId))
                 writer.setPermanent();
             
+            writer.setFlushPolicy(config.getFlushPolicyFor(currId));
             writer.setWriterBuilders(config.getBuildersFor(currId));
         }
         
+        invalidateHandles();
         return this;
     }
     
+    /**
+     * Gets a handle that caches the output of an id, as this manager 
+     * invalidates the handles when its configuration changes.
+     * @param id The id of the output.
+     * @return The handle.
+     */
+    @Override
+    public OutputHandle getHandle(String id)
+    {
+        return new OutputHandle(this, id, true);
+    }
+    
     @Override
     public PrintWriter getOutput(String id)
     {
-        MultiWriter writer = table.get(id);
-        
-        if(writer == null)
-            return null;
-        
-        PrintWriter pw = wrappers.get(writer);
-        return pw;
+        Entry entry = table.get(id);
+        return entry == null ? null : entry.printer;
     }
     
     @Override
@@ -177,12 +107,12 @@ public class DefaultOutputManager extends OutputManager
     @Override
     public DefaultOutputManager closeOutputs(String id)
     {
-        MultiWriter writer = table.get(id);
+        Entry entry = table.get(id);
         
         try
         {
-            if(writer != null)
-                writer.close();
+            if(entry != null)
+                entry.writer.close();
         }
         catch(IOException ex)
         {
@@ -195,34 +125,27 @@ public class DefaultOutputManager extends OutputManager
     @Override
     public DefaultOutputManager clearOutputs()
     {
-        ArrayList<String> idsToClear = new ArrayList<>();
-        
-        for(String id : table.keySet())
-        {
-            if(!table.get(id).isPermanent())
-                idsToClear.add(id);
-        }
-        
-        int count = idsToClear.size();
+        Iterator<Entry> it = table.values().iterator();
         
-        for(int i = 0; i < count; i++)
+        while(it.hasNext())
         {
-            MultiWriter writer = table.remove(idsToClear.get(i));
-            wrappers.remove(writer);
+            if(!it.next().writer.isPermanent())
+                it.remove();
         }
         
+        invalidateHandles();
         return this;
     }
     
     @Override
     public DefaultOutputManager clearOutputs(String id)
     {
-        MultiWriter writer = table.get(id);
+        Entry entry = table.get(id);
         
-        if(writer != null && !writer.isPermanent())
+        if(entry != null && !entry.writer.isPermanent())
         {
             table.remove(id);
-            wrappers.remove(writer);
+            invalidateHandles();
         }
         
         return this;
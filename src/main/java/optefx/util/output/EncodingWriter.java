@@ -0,0 +1,159 @@
+
+package optefx.util.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Implements a writer that encodes its text as UTF-8 into a byte buffer, 
+ * without creating objects per write. The subclasses define where the bytes
+ * are stored when the buffer is full, flushed or closed.
+ * @author Enrique Urra C.
+ */
+abstract class EncodingWriter extends Writer
+{
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private boolean closed;
+    /**
+     * The buffer in which the bytes are encoded, which the subclasses can 
+     * replace when it is drained.
+     */
+    protected ByteBuffer bytes;
+
+    /**
+     * Creates the writer.
+     * @param bytes The initial buffer in which the bytes are encoded.
+     * @param charCapacity The amount of chars buffered before encoding them.
+     */
+    protected EncodingWriter(ByteBuffer bytes, int charCapacity)
+    {
+        if(bytes == null)
+            throw new NullPointerException("Null byte buffer");
+
+        this.bytes = bytes;
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars = CharBuffer.allocate(Math.max(16, charCapacity));
+    }
+
+    /**
+     * Makes room in the byte buffer, which is full or has to be emptied.
+     */
+    protected abstract void drainBytes() throws IOException;
+
+    /**
+     * Stores the encoded bytes when the writer is flushed.
+     */
+    protected abstract void flushBytes() throws IOException;
+
+    /**
+     * Stores the remaining bytes and releases the resources of the writer.
+     */
+    protected abstract void closeBytes() throws IOException;
+
+    private void ensureOpen() throws IOException
+    {
+        if(closed)
+            throw new IOException("The writer has been closed");
+    }
+
+    /**
+     * Encodes the pending chars into the byte buffer.
+     * @param endOfInput true if no more chars will be written.
+     */
+    private void encode(boolean endOfInput) throws IOException
+    {
+        chars.flip();
+
+        while(true)
+        {
+            CoderResult res = encoder.encode(chars, bytes, endOfInput);
+
+            if(res.isOverflow())
+                drainBytes();
+            else if(res.isUnderflow())
+                break;
+            else
+                res.throwException();
+        }
+
+        // An incomplete surrogate pair may remain for the next write
+        chars.compact();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        ensureOpen();
+
+        while(len > 0)
+        {
+            int count = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, count);
+            off += count;
+            len -= count;
+            encode(false);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        ensureOpen();
+
+        while(len > 0)
+        {
+            int count = Math.min(len, chars.remaining());
+            int pos = chars.position();
+            str.getChars(off, off + count, chars.array(), chars.arrayOffset() + pos);
+            chars.position(pos + count);
+            off += count;
+            len -= count;
+            encode(false);
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        ensureOpen();
+        chars.put((char)c);
+        encode(false);
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        ensureOpen();
+        flushBytes();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if(closed)
+            return;
+
+        closed = true;
+
+        try
+        {
+            encode(true);
+
+            while(encoder.flush(bytes).isOverflow())
+                drainBytes();
+        }
+        finally
+        {
+            closeBytes();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 
 package optefx.util.output;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -8,13 +9,15 @@ import java.io.Writer;
 import java.util.function.Supplier;
 
 /**
- *
+ * Builds buffered writers for files. The buffer is flushed according to the
+ * flush policy of the output id (see FlushPolicy).
  * @author Enrique Urra C.
  */
 public final class FileWriterBuilder implements WriterBuilder
 {
     private Supplier<String> pathSupplier;
     private boolean append;
+    private int bufferSize = 8192;
 
     public FileWriterBuilder(String path)
     {
@@ -35,6 +38,15 @@ public final class FileWriterBuilder implements WriterBuilder
         return this;
     }
 
+    public FileWriterBuilder setBufferSize(int bufferSize)
+    {
+        if(bufferSize <= 0)
+            throw new IllegalArgumentException("The buffer size must be positive");
+        
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
     @Override
     public Writer build() throws IOException
     {
@@ -61,6 +73,6 @@ public final class FileWriterBuilder implements WriterBuilder
             throw new RuntimeException("Error while creating output file.", ex);
         }
         
-        return fileWriter;
+        return new BufferedWriter(fileWriter, bufferSize);
     }
 }
@@ -0,0 +1,85 @@
+
+package optefx.util.output;
+
+/**
+ * Defines when the writers of an output id are flushed:
+ * - After every write (the default), which keeps the outputs interactive.
+ * - After every write that contains a line break.
+ * - After a given amount of chars has been written since the last flush.
+ * - After a given amount of milliseconds since the last flush. The elapsed 
+ *   time is checked when the text is written, so no timer thread is used.
+ * - Only when the outputs are explicitly flushed or closed.
+ * 
+ * The policies are set per id through OutputConfig and OutputIdConfig.
+ * @author Enrique Urra C.
+ */
+public final class FlushPolicy
+{
+    public enum Kind
+    {
+        EVERY_WRITE,
+        LINE,
+        CHARS,
+        MILLIS,
+        MANUAL
+    }
+    
+    private static final FlushPolicy EVERY_WRITE = new FlushPolicy(Kind.EVERY_WRITE, 0);
+    private static final FlushPolicy LINE = new FlushPolicy(Kind.LINE, 0);
+    private static final FlushPolicy MANUAL = new FlushPolicy(Kind.MANUAL, 0);
+    
+    private final Kind kind;
+    private final long value;
+
+    private FlushPolicy(Kind kind, long value)
+    {
+        this.kind = kind;
+        this.value = value;
+    }
+    
+    public static FlushPolicy everyWrite()
+    {
+        return EVERY_WRITE;
+    }
+    
+    public static FlushPolicy onLine()
+    {
+        return LINE;
+    }
+    
+    public static FlushPolicy everyChars(long chars)
+    {
+        if(chars <= 0)
+            throw new IllegalArgumentException("The amount of chars must be positive");
+        
+        return new FlushPolicy(Kind.CHARS, chars);
+    }
+    
+    public static FlushPolicy everyMillis(long millis)
+    {
+        if(millis <= 0)
+            throw new IllegalArgumentException("The amount of milliseconds must be positive");
+        
+        return new FlushPolicy(Kind.MILLIS, millis);
+    }
+    
+    public static FlushPolicy manual()
+    {
+        return MANUAL;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Gets the amount of chars or milliseconds of the policy, depending on its
+     * kind.
+     * @return The value, or zero if the kind does not use a value.
+     */
+    public long getValue()
+    {
+        return value;
+    }
+}
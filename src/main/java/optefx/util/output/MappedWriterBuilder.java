@@ -0,0 +1,152 @@
+
+package optefx.util.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Builds append-only writers that encode their text as UTF-8 directly into 
+ * memory-mapped regions of a file. When a region is full, the next region is
+ * mapped after it, so the file grows in large chunks. The text is stored in
+ * the mapped memory as soon as it is written, so flushing the writer does not
+ * perform any I/O, and the data is kept by the operating system even if the
+ * process crashes. When the writer is closed, the file is truncated to the 
+ * length of the written text.
+ * 
+ * This builder is intended for very high-volume outputs, e.g., one line per
+ * evaluation. In some platforms (e.g., Windows), the file cannot be truncated
+ * while a region is still mapped, in which case the closing fails and the file
+ * keeps the zeros of the unused part of the last region. As the writers must 
+ * be closed to truncate the file, this builder cannot be used in persistent 
+ * output ids (see OutputConfig.makePersistent()).
+ * @author Enrique Urra C.
+ */
+public final class MappedWriterBuilder implements WriterBuilder
+{
+    private static final class MappedWriter extends EncodingWriter
+    {
+        private final FileChannel channel;
+        private final long chunkSize;
+        private long mapStart;
+
+        public MappedWriter(FileChannel channel, boolean append, long chunkSize) throws IOException
+        {
+            this(channel, append ? channel.size() : 0, chunkSize);
+        }
+
+        private MappedWriter(FileChannel channel, long mapStart, long chunkSize) throws IOException
+        {
+            super(channel.map(FileChannel.MapMode.READ_WRITE, mapStart, chunkSize), 8192);
+            this.channel = channel;
+            this.chunkSize = chunkSize;
+            this.mapStart = mapStart;
+        }
+
+        @Override
+        protected void drainBytes() throws IOException
+        {
+            mapStart += bytes.position();
+            bytes = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, chunkSize);
+        }
+
+        @Override
+        protected void flushBytes() throws IOException
+        {
+        }
+
+        @Override
+        protected void closeBytes() throws IOException
+        {
+            long length = mapStart + bytes.position();
+            ((MappedByteBuffer)bytes).force();
+            bytes = null;
+
+            try
+            {
+                channel.truncate(length);
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+    }
+    
+    private Supplier<String> pathSupplier;
+    private boolean append;
+    private long chunkSize = 64L << 20;
+
+    public MappedWriterBuilder(String path)
+    {
+        this(() -> path);
+    }
+    
+    public MappedWriterBuilder(Supplier<String> pathSupplier)
+    {
+        if(pathSupplier == null)
+            throw new NullPointerException("Null path");
+        
+        this.pathSupplier = pathSupplier;
+    }
+    
+    public MappedWriterBuilder enableAppend(boolean enable)
+    {
+        this.append = enable;
+        return this;
+    }
+    
+    /**
+     * Sets the size of the mapped regions.
+     * @param chunkSize The size in bytes, at most Integer.MAX_VALUE.
+     * @return This builder.
+     */
+    public MappedWriterBuilder setChunkSize(long chunkSize)
+    {
+        if(chunkSize < 4096 || chunkSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The chunk size must be in the range [4096, " + Integer.MAX_VALUE + "]");
+        
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    public boolean requiresClose()
+    {
+        return true;
+    }
+
+    @Override
+    public Writer build() throws IOException
+    {
+        String path = pathSupplier.get();
+        File file = new File(path);
+        File dir = file.getParentFile();
+        
+        if(dir != null)
+        {
+            dir.mkdirs();
+        
+            if(!dir.exists())
+                throw new IOException("Cannot generate directories for the path '" + path + "'");
+        }
+        
+        FileChannel channel = append ? 
+            FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE) :
+            FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        
+        try
+        {
+            return new MappedWriter(channel, append, chunkSize);
+        }
+        catch(IOException ex)
+        {
+            channel.close();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+
+package optefx.util.output;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Implements a writer that redirects its text to all the writers of an output
+ * id. The writers are built from their builders the first time they are used.
+ * The writers are flushed according to a flush policy, which flushes them 
+ * after every write by default.
+ * @author Enrique Urra C.
+ */
+class MultiWriter extends Writer
+{
+    private Writer[] writers = new Writer[0];
+    private WriterBuilder[] builders;
+    private boolean initialized;
+    private boolean permanent;
+    private FlushPolicy flushPolicy = FlushPolicy.everyWrite();
+    private long pendingChars;
+    private long lastFlush = System.currentTimeMillis();
+
+    public synchronized void setPermanent()
+    {
+        if(builders != null)
+        {
+            for(int i = 0; i < builders.length; i++)
+                checkPermanentBuilder(builders[i], i);
+        }
+
+        this.permanent = true;
+    }
+
+    /**
+     * Checks that a builder can be used by a permanent writer, which is never
+     * closed.
+     */
+    private static void checkPermanentBuilder(WriterBuilder builder, int position)
+    {
+        if(builder.requiresClose())
+            throw new IllegalArgumentException("The builder at position " + position + " requires its writers to be closed, so it cannot be used by a persistent output");
+    }
+
+    public boolean isPermanent()
+    {
+        return permanent;
+    }
+
+    public synchronized void setFlushPolicy(FlushPolicy flushPolicy)
+    {
+        if(flushPolicy == null)
+            throw new NullPointerException("Null flush policy");
+        
+        this.flushPolicy = flushPolicy;
+    }
+
+    public FlushPolicy getFlushPolicy()
+    {
+        return flushPolicy;
+    }
+
+    public synchronized void setWriterBuilders(WriterBuilder[] builders)
+    {
+        if(builders == null)
+            throw new NullPointerException("Null builders array");
+
+        WriterBuilder[] newBuilders = new WriterBuilder[builders.length];
+
+        for(int i = 0; i < builders.length; i++)
+        {
+            if(builders[i] == null)
+               throw new NullPointerException("Null builders at position " + i);
+
+            if(permanent)
+                checkPermanentBuilder(builders[i], i);
+
+            newBuilders[i] = builders[i];
+        }
+
+        this.builders = newBuilders;
+    }
+
+    private synchronized void checkInitialized() throws IOException
+    {
+        if(!initialized && builders != null)
+        {
+            writers = new Writer[builders.length];
+
+            for(int i = 0; i < builders.length; i++)
+            {
+                WriterBuilder currBuilder = builders[i];
+                writers[i] = currBuilder.build();
+            }
+
+            initialized = true;
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int i, int i1) throws IOException
+    {
+        checkInitialized();
+
+        for(int j = 0; j < writers.length; j++)
+            writers[j].write(chars, i, i1);
+
+        if(mustFlush(chars, i, i1))
+            flush();
+    }
+    
+    /**
+     * Checks if the writers must be flushed after a write, according to the
+     * flush policy.
+     */
+    private boolean mustFlush(char[] chars, int off, int len)
+    {
+        switch(flushPolicy.getKind())
+        {
+            case EVERY_WRITE :
+            {
+                return true;
+            }
+            case LINE :
+            {
+                int end = off + len;
+                
+                for(int k = off; k < end; k++)
+                {
+                    if(chars[k] == '\n')
+                        return true;
+                }
+                
+                return false;
+            }
+            case CHARS :
+            {
+                pendingChars += len;
+                return pendingChars >= flushPolicy.getValue();
+            }
+            case MILLIS :
+            {
+                return System.currentTimeMillis() - lastFlush >= flushPolicy.getValue();
+            }
+            default :
+            {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        checkInitialized();
+
+        for(int i = 0; i < writers.length; i++)
+            writers[i].flush();
+        
+        pendingChars = 0;
+        
+        if(flushPolicy.getKind() == FlushPolicy.Kind.MILLIS)
+            lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        checkInitialized();
+
+        // Permanent writers are never closed, but their buffered text is kept
+        if(permanent)
+        {
+            flush();
+            return;
+        }
+
+        for(int i = 0; i < writers.length; i++)
+            writers[i].close();
+    }
+}
@@ -22,6 +22,7 @@ public final class OutputConfig
     {
         private final List<WriterBuilder> builders;
         private boolean permanent;
+        private FlushPolicy flushPolicy = FlushPolicy.everyWrite();
 
         public OutputConfigEntry()
         {
@@ -61,6 +62,12 @@ public final class OutputConfig
             return this;
         }
 
+        public OutputConfigEntry addOutput(WriterBuilder builder)
+        {
+            addBuilder(builder);
+            return this;
+        }
+
         public void makePersistent()
         {
             this.permanent = true;
@@ -71,6 +78,16 @@ public final class OutputConfig
             return permanent;
         }
 
+        public void setFlushPolicy(FlushPolicy flushPolicy)
+        {
+            this.flushPolicy = flushPolicy;
+        }
+
+        public FlushPolicy getFlushPolicy()
+        {
+            return flushPolicy;
+        }
+
         private void addBuilder(WriterBuilder builder)
         {
             builders.add(builder);
@@ -138,6 +155,16 @@ public final class OutputConfig
         return entry.isPermanent();
     }
 
+    public FlushPolicy getFlushPolicyFor(String id)
+    {
+        OutputConfigEntry entry = entries.get(id);
+
+        if(entry == null)
+            throw new NoSuchElementException("The id '" + id + "' has not been added to this configuration");
+
+        return entry.getFlushPolicy();
+    }
+
     public WriterBuilder[] getBuildersFor(String id)
     {
         OutputConfigEntry entry = entries.get(id);
@@ -196,6 +223,12 @@ public final class OutputConfig
             
             for(OutputIdConfig.FileEntry fileEntry : fileEntries)
                 entry.addFileOutput(fileEntry.path, fileEntry.append);
+            
+            for(WriterBuilder builder : idConfig.getBuilders())
+                entry.addOutput(builder);
+            
+            if(idConfig.getFlushPolicy() != null)
+                entry.setFlushPolicy(idConfig.getFlushPolicy());
         }
         
         return this;
@@ -247,6 +280,68 @@ public final class OutputConfig
         return this;
     }
     
+    /**
+     * Adds a memory-mapped file output to an id (see MappedWriterBuilder), 
+     * which is intended for very high-volume outputs.
+     * @param id The id.
+     * @param filePath The path of the file.
+     * @param append true if the text must be appended to the existing file.
+     * @return This configuration.
+     */
+    public OutputConfig addMappedFileOutput(String id, String filePath, boolean append)
+    {
+        return addOutput(id, new MappedWriterBuilder(filePath).enableAppend(append));
+    }
+    
+    /**
+     * Adds a gzip file output to an id, whose text is compressed by a 
+     * background thread (see CompressedWriterBuilder). For other formats or
+     * settings, a CompressedWriterBuilder can be added through addOutput().
+     * @param id The id.
+     * @param filePath The path of the file.
+     * @param append true if the text must be appended to the existing file, 
+     * as a new gzip member.
+     * @return This configuration.
+     */
+    public OutputConfig addGzipFileOutput(String id, String filePath, boolean append)
+    {
+        return addOutput(id, new CompressedWriterBuilder(filePath).enableAppend(append));
+    }
+    
+    /**
+     * Adds an output to an id, whose writer is created by a custom builder 
+     * (e.g., a ChannelWriterBuilder for high-throughput file outputs).
+     * @param id The id.
+     * @param builder The builder of the writer.
+     * @return This configuration.
+     */
+    public OutputConfig addOutput(String id, WriterBuilder builder)
+    {
+        if(builder == null)
+            throw new NullPointerException("Null builder");
+        
+        getEntry(id).addOutput(builder);
+        return this;
+    }
+    
+    /**
+     * Sets the flush policy of the writers of an id. By default, the writers 
+     * are flushed after every write.
+     * @param id The id.
+     * @param flushPolicy The flush policy.
+     * @return This configuration.
+     */
+    public OutputConfig setFlushPolicy(String id, FlushPolicy flushPolicy)
+    {
+        if(flushPolicy == null)
+            throw new NullPointerException("Null flush policy");
+        
+        if(id != null)
+            getEntry(id).setFlushPolicy(flushPolicy);
+        
+        return this;
+    }
+    
     public OutputConfig makePersistent(String id)
     {
         if(id != null)
@@ -0,0 +1,255 @@
+
+package optefx.util.output;
+
+import java.io.PrintWriter;
+import java.util.function.Supplier;
+
+/**
+ * Implements a handle to the output of an id, which is resolved once instead
+ * of being searched in each call:
+ * 
+ *      OutputHandle trace = OutputManager.getCurrent().getHandle("trace");
+ *      ...
+ *      trace.println(value);
+ * 
+ * The default and asynchronous managers increase a version counter each time
+ * their configuration changes (setOutputsFromConfig and clearOutputs), and 
+ * their handles resolve the output again when they find a different version.
+ * Therefore, the cost of a call on a handle of a disabled id is a field read
+ * and a null check, and the arguments are not converted to strings.
+ * 
+ * The handles of other managers (e.g., the multi-thread manager and custom 
+ * managers) do not cache the output, and resolve it in each call. The cached
+ * handles are not thread-safe.
+ * @author Enrique Urra C.
+ */
+public final class OutputHandle
+{
+    private final OutputManager manager;
+    private final String id;
+    private final boolean cached;
+    private PrintWriter writer;
+    private int version;
+
+    /**
+     * Creates the handle.
+     * @param manager The manager.
+     * @param id The id of the output.
+     * @param cached false if the output must be resolved in each call.
+     */
+    OutputHandle(OutputManager manager, String id, boolean cached)
+    {
+        if(manager == null)
+            throw new NullPointerException("Null manager");
+        
+        if(id == null)
+            throw new NullPointerException("Null id");
+        
+        this.manager = manager;
+        this.id = id;
+        this.cached = cached;
+        
+        if(cached)
+            resolve();
+    }
+    
+    private void resolve()
+    {
+        // The version is read first, so a concurrent change is not missed
+        int current = manager.getHandleVersion();
+        writer = manager.getOutput(id);
+        version = current;
+    }
+    
+    private PrintWriter writer()
+    {
+        if(!cached)
+            return manager.getOutput(id);
+        
+        if(version != manager.getHandleVersion())
+            resolve();
+        
+        return writer;
+    }
+    
+    public String getId()
+    {
+        return id;
+    }
+    
+    public boolean isEnabled()
+    {
+        return writer() != null;
+    }
+    
+    /**
+     * Gets the current writer of the id.
+     * @return The writer, or null if the id is not configured.
+     */
+    public PrintWriter getWriter()
+    {
+        return writer();
+    }
+    
+    public void print(Object obj)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(obj);
+    }
+    
+    public void println(Object obj)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(obj);
+    }
+    
+    public void println()
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println();
+    }
+    
+    /**
+     * Prints the text provided by a supplier, which is only called if the id
+     * is configured. A null supplier prints "null", as a null object.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public void print(Supplier<?> supplier)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(supplier == null ? null : supplier.get());
+    }
+    
+    public void print(int value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    public void print(long value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    public void print(float value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    public void print(double value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    public void print(boolean value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    public void print(char value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.print(value);
+    }
+    
+    /**
+     * Prints the text provided by a supplier, which is only called if the id
+     * is configured. A null supplier prints "null", as a null object.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public void println(Supplier<?> supplier)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(supplier == null ? null : supplier.get());
+    }
+    
+    public void println(int value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void println(long value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void println(float value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void println(double value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void println(boolean value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void println(char value)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.println(value);
+    }
+    
+    public void format(String format, Object... objs)
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.format(format, objs);
+    }
+    
+    public void flush()
+    {
+        PrintWriter pw = writer();
+        
+        if(pw != null)
+            pw.flush();
+    }
+}
@@ -24,11 +24,14 @@ public final class OutputIdConfig
     
     private boolean systemOutput;
     private boolean systemErrorOutput;
+    private FlushPolicy flushPolicy;
     private final ArrayList<FileEntry> fileEntries;
+    private final ArrayList<WriterBuilder> builders;
 
     public OutputIdConfig()
     {
         this.fileEntries = new ArrayList<>();
+        this.builders = new ArrayList<>();
     }
     
     public OutputIdConfig enableSystemOutput()
@@ -74,8 +77,46 @@ public final class OutputIdConfig
         return this;
     }
     
+    public OutputIdConfig addMappedFileOutput(String filePath, boolean append)
+    {
+        return addOutput(new MappedWriterBuilder(filePath).enableAppend(append));
+    }
+    
+    public OutputIdConfig addGzipFileOutput(String filePath, boolean append)
+    {
+        return addOutput(new CompressedWriterBuilder(filePath).enableAppend(append));
+    }
+    
+    public OutputIdConfig addOutput(WriterBuilder builder)
+    {
+        if(builder == null)
+            throw new NullPointerException("Null builder");
+        
+        builders.add(builder);
+        return this;
+    }
+    
+    public OutputIdConfig setFlushPolicy(FlushPolicy flushPolicy)
+    {
+        if(flushPolicy == null)
+            throw new NullPointerException("Null flush policy");
+        
+        this.flushPolicy = flushPolicy;
+        return this;
+    }
+    
+    FlushPolicy getFlushPolicy()
+    {
+        return flushPolicy;
+    }
+    
     ArrayList<FileEntry> getFileEntries()
     {
         return fileEntries;
     }
+    
+    ArrayList<WriterBuilder> getBuilders()
+    {
+        return builders;
+    }
 }
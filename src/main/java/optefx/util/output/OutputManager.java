@@ -4,6 +4,8 @@ package optefx.util.output;
 import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Defines an algorithm output manager, a helper class for different output
@@ -91,7 +93,14 @@ import java.util.Map;
  *      OutputManager.println("a_no_registered_id", "This call is
  *          null-pointer safe. The 'a_no_registered_id' may not be configured
  *          previously and nothing will be printed.");
- * 
+ *
+ * Code that prints frequently, e.g., inside loops, can obtain a handle to the
+ * output of an id, which is only resolved again when the configuration of the
+ * manager changes (see OutputHandle):
+ *
+ *      OutputHandle trace = OutputManager.getCurrent().getHandle("trace");
+ *      trace.println("This call does not search the 'trace' output.");
+ *
  * The outputs registered and active in the manager can be closed/terminated
  * in any moment. Such finalization is commonly called after the algorithm 
  * execution. Alternatively, outputs associated with particular ids can be
@@ -101,7 +110,7 @@ import java.util.Map;
  *      OutputManager.getCurrent().closeOutputs();
  * 
  * The manner how the configured ids are handled depends on the manager 
- * implementation. By default, there are two different implementations in the
+ * implementation. By default, there are three different implementations in the
  * Manager:
  * - A single thread implementation, which allows to perform faster output 
  *   printing. As this implementation runs in a single thread, each id 
@@ -112,8 +121,12 @@ import java.util.Map;
  *   different PrintWritter objects will be generated, one for each thread. 
  *   Because the thread management, this implementation is only recommended for 
  *   develop or required multi-thread environments.
+ * - An asynchronous implementation, which copies the printed text into a ring
+ *   buffer that is written by a dedicated thread, so the algorithm threads do
+ *   not perform I/O. The outputs are shared by all the threads, and must be
+ *   closed (or drained) to ensure that all the text has been written.
  * 
- * Both implementations can be switched through the setCurrent() method.
+ * The implementations can be switched through the setCurrent() method.
  * 
  * @author Enrique Urra C.
  */
@@ -129,6 +142,8 @@ public abstract class OutputManager
     private static OutputManager instance;
     private static Enum currentType = null;
     
+    private final AtomicInteger handleVersion = new AtomicInteger();
+    
     private static OutputManager getBasicManager(Enum type)
     {
         if(basicManagers == null)
@@ -137,6 +152,7 @@ public abstract class OutputManager
             basicManagers.put(BasicManagerType.DEFAULT, baseManager);
             basicManagers.put(BasicManagerType.SINGLE_THREAD, baseManager);
             basicManagers.put(BasicManagerType.MULTI_THREAD, new MultiThreadOutputManager());
+            basicManagers.put(BasicManagerType.ASYNC, new AsyncOutputManager());
         }
         
         return basicManagers.get(type);
@@ -252,14 +268,284 @@ public abstract class OutputManager
         PrintWriter ps = getCurrent().getOutput(id);
         
         if(ps != null)
-            ps.format(id, objs);
+            ps.format(format, objs);
+    }
+    
+    /**
+     * Checks if an output id is configured in the current manager. This allows
+     * to skip the construction of text that would not be printed.
+     * @param id The id of the output.
+     * @return true if the id is configured, false otherwise.
+     */
+    public static boolean isEnabled(String id)
+    {
+        return getCurrent().getOutput(id) != null;
+    }
+    
+    /**
+     * Null-pointer safe method which prints the text provided by a supplier
+     * through the specified output, without a line break. The supplier is only
+     * called if the output id is configured, so the text is not built
+     * otherwise. A null supplier prints "null", as a null object.
+     * @param id The id of the output to print.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public static void print(String id, Supplier<?> supplier)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(supplier == null ? null : supplier.get());
+    }
+    
+    /**
+     * Null-pointer safe method which prints an int through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, int value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a long through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, long value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a float through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, float value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a double through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, double value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a boolean through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, boolean value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a char through the specified
+     * output, without a line break, without boxing it. If no output is found
+     * with such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void print(String id, char value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.print(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints the text provided by a supplier
+     * through the specified output, with line break. The supplier is only
+     * called if the output id is configured, so the text is not built
+     * otherwise. A null supplier prints "null", as a null object.
+     * @param id The id of the output to print.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public static void println(String id, Supplier<?> supplier)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(supplier == null ? null : supplier.get());
+    }
+    
+    /**
+     * Null-pointer safe method which prints an int through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, int value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a long through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, long value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a float through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, float value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a double through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, double value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a boolean through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, boolean value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
+    }
+    
+    /**
+     * Null-pointer safe method which prints a char through the specified
+     * output, with line break, without boxing it. If no output is found with
+     * such id, the method does nothing.
+     * @param id The id of the output to print.
+     * @param value The value to be printed.
+     */
+    public static void println(String id, char value)
+    {
+        PrintWriter ps = getCurrent().getOutput(id);
+        
+        if(ps != null)
+            ps.println(value);
     }
     
     public final OutputPrinter getPrinterFor(String id)
     {
         return new OutputPrinter(this, id);
     }
+
+    /**
+     * Gets a handle to the output of an id (see OutputHandle). This 
+     * implementation resolves the output in each call, as it cannot detect 
+     * the configuration changes of the subclasses. The managers that call the
+     * invalidateHandles() method override it to return cached handles, which
+     * avoid the search of the output in each call.
+     * @param id The id of the output.
+     * @return The handle.
+     */
+    public OutputHandle getHandle(String id)
+    {
+        return new OutputHandle(this, id, false);
+    }
+    
+    /**
+     * Gets the version of the configuration of the manager, used by the 
+     * handles to detect changes.
+     * @return The version.
+     */
+    final int getHandleVersion()
+    {
+        return handleVersion.get();
+    }
     
+    /**
+     * Invalidates the handles obtained from this manager, so they resolve 
+     * their outputs again. Implementations that return cached handles must 
+     * call this method when the set of configured ids changes.
+     */
+    protected final void invalidateHandles()
+    {
+        handleVersion.incrementAndGet();
+    }
+    
+    /**
+     * Creates a record writer that prints typed records as CSV lines through
+     * an output id (see RecordWriter). The writer is disabled if the id is not
+     * configured.
+     * @param id The id of the output.
+     * @param schema The schema of the records.
+     * @return The record writer.
+     */
+    public final RecordWriter getRecordWriter(String id, RecordSchema schema)
+    {
+        return RecordWriter.csv(this, id, schema);
+    }
+
     public abstract OutputManager init();
     
     /**
@@ -2,57 +2,139 @@
 package optefx.util.output;
 
 import java.io.PrintWriter;
+import java.util.function.Supplier;
 
 /**
- *
+ * Prints through the output of an id, which is resolved through a handle of
+ * the manager (see OutputHandle).
  * @author Enrique Urra C.
  */
 public final class OutputPrinter
 {
     private final OutputManager manager;
     private final String outputId;
+    private final OutputHandle handle;
 
     public OutputPrinter(OutputManager manager, String outputId)
     {
         this.manager = manager;
         this.outputId = outputId;
+        this.handle = manager.getHandle(outputId);
     }
 
     public PrintWriter getPrinter()
     {
-        return manager.getOutput(outputId);
+        return handle.getWriter();
+    }
+    
+    public boolean isEnabled()
+    {
+        return handle.isEnabled();
+    }
+    
+    public OutputHandle getHandle()
+    {
+        return handle;
     }
 
     public void print(Object obj)
     {
-        PrintWriter pw = manager.getOutput(outputId);
-        
-        if(pw != null)
-            pw.print(obj);
+        handle.print(obj);
     }
 
     public void println(Object obj)
     {
-        PrintWriter pw = manager.getOutput(outputId);
-        
-        if(pw != null)
-            pw.println(obj);
+        handle.println(obj);
     }
 
     public void println()
     {
-        PrintWriter pw = manager.getOutput(outputId);
-        
-        if(pw != null)
-            pw.println();
+        handle.println();
+    }
+
+    /**
+     * Prints the text provided by a supplier, which is only called if the id
+     * is configured.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public void print(Supplier<?> supplier)
+    {
+        handle.print(supplier);
+    }
+
+    public void print(int value)
+    {
+        handle.print(value);
+    }
+
+    public void print(long value)
+    {
+        handle.print(value);
+    }
+
+    public void print(float value)
+    {
+        handle.print(value);
+    }
+
+    public void print(double value)
+    {
+        handle.print(value);
+    }
+
+    public void print(boolean value)
+    {
+        handle.print(value);
+    }
+
+    public void print(char value)
+    {
+        handle.print(value);
+    }
+
+    /**
+     * Prints the text provided by a supplier, which is only called if the id
+     * is configured.
+     * @param supplier The supplier of the input to be printed.
+     */
+    public void println(Supplier<?> supplier)
+    {
+        handle.println(supplier);
+    }
+
+    public void println(int value)
+    {
+        handle.println(value);
+    }
+
+    public void println(long value)
+    {
+        handle.println(value);
+    }
+
+    public void println(float value)
+    {
+        handle.println(value);
+    }
+
+    public void println(double value)
+    {
+        handle.println(value);
+    }
+
+    public void println(boolean value)
+    {
+        handle.println(value);
+    }
+
+    public void println(char value)
+    {
+        handle.println(value);
     }
 
     public void format(String format, Object... objs)
     {
-        PrintWriter pw = manager.getOutput(outputId);
-        
-        if(pw != null)
-            pw.format(format, objs);
+        handle.format(format, objs);
     }
     
     public void close()
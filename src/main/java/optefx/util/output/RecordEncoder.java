@@ -0,0 +1,22 @@
+
+package optefx.util.output;
+
+import java.io.IOException;
+
+/**
+ * Defines an encoder of typed records, which receives the values of each 
+ * record in the order of the columns of the schema (see RecordWriter).
+ * @author Enrique Urra C.
+ */
+public interface RecordEncoder
+{
+    void begin(RecordSchema schema) throws IOException;
+    void putInt(int column, int value) throws IOException;
+    void putLong(int column, long value) throws IOException;
+    void putDouble(int column, double value) throws IOException;
+    void putBoolean(int column, boolean value) throws IOException;
+    void putString(int column, CharSequence value) throws IOException;
+    void endRecord() throws IOException;
+    void flush() throws IOException;
+    void close() throws IOException;
+}
@@ -0,0 +1,97 @@
+
+package optefx.util.output;
+
+import java.util.ArrayList;
+
+/**
+ * Defines the columns of the records written through a RecordWriter. The 
+ * columns are added in order through the fluent add methods, and each record
+ * must provide a value for each column in the same order.
+ * @author Enrique Urra C.
+ */
+public final class RecordSchema
+{
+    public enum Type
+    {
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        STRING
+    }
+    
+    private final ArrayList<String> names;
+    private final ArrayList<Type> types;
+
+    public RecordSchema()
+    {
+        this.names = new ArrayList<>();
+        this.types = new ArrayList<>();
+    }
+    
+    public RecordSchema addColumn(String name, Type type)
+    {
+        if(name == null)
+            throw new NullPointerException("Null column name");
+        
+        if(type == null)
+            throw new NullPointerException("Null column type");
+        
+        if(names.contains(name))
+            throw new IllegalArgumentException("The column '" + name + "' has already been added");
+        
+        names.add(name);
+        types.add(type);
+        return this;
+    }
+    
+    public RecordSchema addInt(String name)
+    {
+        return addColumn(name, Type.INT);
+    }
+    
+    public RecordSchema addLong(String name)
+    {
+        return addColumn(name, Type.LONG);
+    }
+    
+    public RecordSchema addDouble(String name)
+    {
+        return addColumn(name, Type.DOUBLE);
+    }
+    
+    public RecordSchema addBoolean(String name)
+    {
+        return addColumn(name, Type.BOOLEAN);
+    }
+    
+    public RecordSchema addString(String name)
+    {
+        return addColumn(name, Type.STRING);
+    }
+    
+    public int getColumnCount()
+    {
+        return names.size();
+    }
+    
+    public String getName(int column)
+    {
+        return names.get(column);
+    }
+    
+    public Type getType(int column)
+    {
+        return types.get(column);
+    }
+    
+    /**
+     * Gets the index of a column.
+     * @param name The name of the column.
+     * @return The index, or -1 if there is no column with such name.
+     */
+    public int indexOf(String name)
+    {
+        return names.indexOf(name);
+    }
+}
@@ -0,0 +1,290 @@
+
+package optefx.util.output;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes typed records without formatting them as strings in the calling 
+ * code, e.g.:
+ * 
+ *      RecordSchema schema = new RecordSchema()
+ *          .addInt("generation")
+ *          .addDouble("best");
+ *      RecordWriter records = OutputManager.getCurrent()
+ *          .getRecordWriter("trace", schema);
+ *      ...
+ *      records.record().putInt(gen).putDouble(best).end();
+ * 
+ * The values are passed to a record encoder, which defines the format of the
+ * output (see CsvRecordEncoder and ColumnarRecordEncoder). The values must be
+ * provided in the order of the columns of the schema. A record writer obtained
+ * for an id that is not configured is disabled, so its methods do nothing.
+ * 
+ * Record writers are not thread-safe.
+ * @author Enrique Urra C.
+ */
+public final class RecordWriter
+{
+    private final RecordSchema schema;
+    private final RecordEncoder encoder;
+    private final int columnCount;
+    private int column = -1;
+
+    /**
+     * Creates the writer.
+     * @param schema The schema of the records.
+     * @param encoder The encoder, or null to create a disabled writer.
+     */
+    public RecordWriter(RecordSchema schema, RecordEncoder encoder)
+    {
+        if(schema == null)
+            throw new NullPointerException("Null schema");
+        
+        this.schema = schema;
+        this.encoder = encoder;
+        this.columnCount = schema.getColumnCount();
+        
+        if(encoder != null)
+        {
+            try
+            {
+                encoder.begin(schema);
+            }
+            catch(IOException ex)
+            {
+                throw new RuntimeException("Error while writing the record header", ex);
+            }
+        }
+    }
+    
+    /**
+     * Creates a writer that prints the records as CSV lines through an output
+     * id of a manager.
+     * @param manager The output manager.
+     * @param id The output id.
+     * @param schema The schema of the records.
+     * @return The writer, which is disabled if the id is not configured.
+     */
+    public static RecordWriter csv(OutputManager manager, String id, RecordSchema schema)
+    {
+        PrintWriter output = manager.getOutput(id);
+        return new RecordWriter(schema, output == null ? null : new CsvRecordEncoder(output));
+    }
+    
+    /**
+     * Creates a writer that stores the records in a binary columnar file (see
+     * ColumnarRecordEncoder).
+     * @param path The path of the file.
+     * @param schema The schema of the records.
+     * @return The writer.
+     */
+    public static RecordWriter columnar(String path, RecordSchema schema)
+    {
+        try
+        {
+            return new RecordWriter(schema, new ColumnarRecordEncoder(new BufferedOutputStream(new FileOutputStream(path), 65536)));
+        }
+        catch(IOException ex)
+        {
+            throw new RuntimeException("Error while creating the record file '" + path + "'", ex);
+        }
+    }
+
+    public RecordSchema getSchema()
+    {
+        return schema;
+    }
+    
+    public boolean isEnabled()
+    {
+        return encoder != null;
+    }
+    
+    private void checkColumn(RecordSchema.Type type)
+    {
+        if(column < 0)
+            throw new IllegalStateException("No record has been started");
+        
+        if(column >= columnCount)
+            throw new IllegalStateException("The record already has all its " + columnCount + " values");
+        
+        if(schema.getType(column) != type)
+            throw new IllegalStateException("The column '" + schema.getName(column) + "' is of type " + schema.getType(column) + ", not " + type);
+    }
+    
+    private RuntimeException writeError(IOException ex)
+    {
+        return new RuntimeException("Error while writing a record", ex);
+    }
+    
+    /**
+     * Starts a new record.
+     * @return This writer.
+     */
+    public RecordWriter record()
+    {
+        if(encoder == null)
+            return this;
+        
+        if(column >= 0)
+            throw new IllegalStateException("The previous record has not been ended");
+        
+        column = 0;
+        return this;
+    }
+    
+    public RecordWriter putInt(int value)
+    {
+        if(encoder == null)
+            return this;
+        
+        checkColumn(RecordSchema.Type.INT);
+        
+        try
+        {
+            encoder.putInt(column++, value);
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+        
+        return this;
+    }
+    
+    public RecordWriter putLong(long value)
+    {
+        if(encoder == null)
+            return this;
+        
+        checkColumn(RecordSchema.Type.LONG);
+        
+        try
+        {
+            encoder.putLong(column++, value);
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+        
+        return this;
+    }
+    
+    public RecordWriter putDouble(double value)
+    {
+        if(encoder == null)
+            return this;
+        
+        checkColumn(RecordSchema.Type.DOUBLE);
+        
+        try
+        {
+            encoder.putDouble(column++, value);
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+        
+        return this;
+    }
+    
+    public RecordWriter putBoolean(boolean value)
+    {
+        if(encoder == null)
+            return this;
+        
+        checkColumn(RecordSchema.Type.BOOLEAN);
+        
+        try
+        {
+            encoder.putBoolean(column++, value);
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+        
+        return this;
+    }
+    
+    public RecordWriter putString(CharSequence value)
+    {
+        if(encoder == null)
+            return this;
+        
+        checkColumn(RecordSchema.Type.STRING);
+        
+        try
+        {
+            encoder.putString(column++, value);
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Ends the current record, which must have a value for each column.
+     */
+    public void end()
+    {
+        if(encoder == null)
+            return;
+        
+        if(column != columnCount)
+            throw new IllegalStateException("The record has " + Math.max(column, 0) + " values, but the schema has " + columnCount + " columns");
+        
+        column = -1;
+        
+        try
+        {
+            encoder.endRecord();
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+    }
+    
+    public void flush()
+    {
+        if(encoder == null)
+            return;
+        
+        try
+        {
+            encoder.flush();
+        }
+        catch(IOException ex)
+        {
+            throw writeError(ex);
+        }
+    }
+    
+    /**
+     * Closes the encoder. For CSV writers, the output id remains open, as it 
+     * is closed through the output manager.
+     */
+    public void close()
+    {
+        if(encoder == null)
+            return;
+        
+        try
+        {
+            encoder.close();
+        }
+        catch(IOException ex)
+        {
+            throw new RuntimeException("Error while closing the record writer", ex);
+        }
+    }
+}
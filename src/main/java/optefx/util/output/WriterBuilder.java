@@ -11,4 +11,16 @@ import java.io.Writer;
 public interface WriterBuilder
 {
     Writer build() throws IOException;
+
+    /**
+     * Indicates if the built writers must be closed to leave their outputs
+     * complete (e.g., to truncate space reserved ahead of the data). Such 
+     * builders cannot be used in persistent output ids, whose writers are 
+     * never closed.
+     * @return true if the writers must be closed, false otherwise.
+     */
+    default boolean requiresClose()
+    {
+        return false;
+    }
 }
@@ -0,0 +1,95 @@
+
+package optefx.util.random;
+
+/**
+ * Implements a weighted sampler for static weights, based on the alias method
+ * as described by Vose (1991). The table is built in linear time, and each 
+ * draw requires a single random index and a single random double.
+ * @author Enrique Urra C.
+ */
+public final class AliasSampler extends WeightedSampler
+{
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    /**
+     * Creates the sampler from a set of weights.
+     * @param weights The non-negative weights. At least one must be positive.
+     */
+    public AliasSampler(double[] weights)
+    {
+        int n = weights.length;
+        double sum = 0.0;
+
+        for(int i = 0; i < n; i++)
+        {
+            checkWeight(i, weights[i]);
+            sum += weights[i];
+        }
+
+        if(!(sum > 0.0) || Double.isInfinite(sum))
+            throw new IllegalArgumentException("The sum of the weights must be positive and finite");
+
+        probabilities = new double[n];
+        aliases = new int[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for(int i = 0; i < n; i++)
+        {
+            scaled[i] = weights[i] * n / sum;
+
+            if(scaled[i] < 1.0)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        while(smallCount > 0 && largeCount > 0)
+        {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+
+            if(scaled[more] < 1.0)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+
+        // The remaining entries are full columns, up to rounding errors
+        while(largeCount > 0)
+        {
+            int index = large[--largeCount];
+            probabilities[index] = 1.0;
+            aliases[index] = index;
+        }
+
+        while(smallCount > 0)
+        {
+            int index = small[--smallCount];
+            probabilities[index] = 1.0;
+            aliases[index] = index;
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return probabilities.length;
+    }
+
+    @Override
+    public int sample(RandomEngine engine)
+    {
+        int column = engine.nextInt(probabilities.length);
+        return engine.nextDouble() < probabilities[column] ? column : aliases[column];
+    }
+}
@@ -0,0 +1,134 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the antithetic counterpart of an engine: each value is the 
+ * mirror of the value that the source engine provides in the same call, e.g.,
+ * a double u is mapped to (1 - u), an int k in [0, bound) is mapped to 
+ * (bound - 1 - k), and a gaussian z is mapped to -z. Therefore, a run with 
+ * this engine is negatively correlated with a run with the source engine, 
+ * which reduces the variance of the average of both runs.
+ *
+ * The values derived by other classes from the raw longs (e.g., the samplers)
+ * are computed from the complemented bits.
+ * @author Enrique Urra C.
+ */
+public final class AntitheticEngine extends RandomEngine
+{
+    private final RandomEngine source;
+
+    /**
+     * Creates the engine.
+     * @param source The source engine, which is used directly (not copied).
+     */
+    public AntitheticEngine(RandomEngine source)
+    {
+        if(source == null)
+            throw new NullPointerException("Null source engine");
+
+        this.source = source;
+    }
+
+    public RandomEngine getSource()
+    {
+        return source;
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return source.getType();
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        source.setSeed(seed);
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return source.getState();
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        source.setState(state);
+    }
+
+    @Override
+    public RandomEngine copy()
+    {
+        return new AntitheticEngine(source.copy());
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        source.jumpPow2(k);
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        source.advance(steps);
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return source.getSubstreamExponent();
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return source.getPeriodExponent();
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return ~source.nextLong();
+    }
+
+    @Override
+    public int nextInt()
+    {
+        return ~source.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound)
+    {
+        return bound - 1 - source.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble()
+    {
+        // The doubles of the engines are multiples of 2^-53, so the mirror is
+        // exact and stays below 1.0
+        return (1.0 - 0x1.0p-53) - source.nextDouble();
+    }
+
+    @Override
+    public float nextFloat()
+    {
+        return (1.0f - 0x1.0p-24f) - source.nextFloat();
+    }
+
+    @Override
+    public boolean nextBoolean()
+    {
+        return !source.nextBoolean();
+    }
+
+    @Override
+    public double nextGaussian()
+    {
+        return -source.nextGaussian();
+    }
+}
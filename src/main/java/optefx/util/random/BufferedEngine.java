@@ -0,0 +1,276 @@
+
+package optefx.util.random;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implements an engine that pre-generates the longs of a source engine in 
+ * blocks, so the cost of the generator is amortized and each call only reads
+ * the next value of the block. The blocks can be refilled in two ways:
+ * - By the consumer itself, when the current block is exhausted.
+ * - By a background producer, which fills a second block while the current 
+ *   one is consumed (double buffering). The producers of all the engines share
+ *   a pool of daemon threads.
+ *
+ * In both cases, the longs are obtained in the same order of the source 
+ * sequence, so the results are deterministic. The derived values (ints, 
+ * doubles, etc.) are always computed from the buffered longs, so they may 
+ * differ from the values of the source engine when it overrides such methods
+ * (e.g., the LCG48 engine).
+ *
+ * The state of this engine is the state that the source engine would have at 
+ * the position of the consumer, so it is compatible with unbuffered engines of
+ * the same type.
+ * @author Enrique Urra C.
+ */
+public final class BufferedEngine extends RandomEngine
+{
+    private static ExecutorService executor;
+
+    private final RandomEngine source;
+    private final RandomEngine scratch;
+    private final boolean background;
+    private final Runnable fillTask;
+    private long[] buffer;
+    private long[] blockState;
+    private int pos;
+    private int limit;
+    private long[] spare;
+    private volatile long[] spareState;
+    private Future<?> pending;
+
+    /**
+     * Creates the engine.
+     * @param source The source engine, which is copied.
+     * @param blockSize The amount of longs of each block.
+     * @param background true if the blocks must be refilled by a background 
+     * producer, false if they must be refilled by the consumer.
+     */
+    public BufferedEngine(RandomEngine source, int blockSize, boolean background)
+    {
+        if(blockSize <= 0)
+            throw new IllegalArgumentException("The block size must be positive");
+
+        this.source = source.copy();
+        this.scratch = source.copy();
+        this.background = background;
+        this.buffer = new long[blockSize];
+        this.spare = background ? new long[blockSize] : null;
+        this.fillTask = () -> 
+        {
+            spareState = this.source.getState();
+            this.source.fillLongs(spare);
+        };
+
+        reset();
+    }
+
+    /**
+     * Gets the shared executor of the background producers.
+     * @return The executor.
+     */
+    private static synchronized ExecutorService getExecutor()
+    {
+        if(executor == null)
+        {
+            executor = Executors.newCachedThreadPool((r) -> 
+            {
+                Thread t = new Thread(r, "optefx-random-refill");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        return executor;
+    }
+
+    public int getBlockSize()
+    {
+        return buffer.length;
+    }
+
+    public boolean isBackground()
+    {
+        return background;
+    }
+
+    /**
+     * Waits for the background producer to finish the current block, if any.
+     */
+    private void awaitPending()
+    {
+        if(pending == null)
+            return;
+
+        boolean interrupted = false;
+
+        while(true)
+        {
+            try
+            {
+                pending.get();
+                break;
+            }
+            catch(InterruptedException ex)
+            {
+                interrupted = true;
+            }
+            catch(ExecutionException ex)
+            {
+                pending = null;
+                throw new RuntimeException("The background refill has failed", ex.getCause());
+            }
+        }
+
+        pending = null;
+
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Discards the buffered values, after the source engine has been changed.
+     */
+    private void reset()
+    {
+        blockState = source.getState();
+        pos = 0;
+        limit = 0;
+    }
+
+    /**
+     * Refills the current block.
+     */
+    private void refill()
+    {
+        if(pending != null)
+        {
+            awaitPending();
+            long[] tmp = buffer;
+            buffer = spare;
+            spare = tmp;
+            blockState = spareState;
+        }
+        else
+        {
+            blockState = source.getState();
+            source.fillLongs(buffer);
+        }
+
+        pos = 0;
+        limit = buffer.length;
+
+        if(background)
+            pending = getExecutor().submit(fillTask);
+    }
+
+    /**
+     * Moves the scratch engine to the position of the consumer.
+     * @return The scratch engine.
+     */
+    private RandomEngine positioned()
+    {
+        scratch.setState(blockState);
+        scratch.advance(pos);
+        return scratch;
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return source.getType();
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        awaitPending();
+        source.setSeed(seed);
+        reset();
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return positioned().getState();
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        awaitPending();
+        source.setState(state);
+        reset();
+    }
+
+    @Override
+    public RandomEngine copy()
+    {
+        return new BufferedEngine(positioned(), buffer.length, background);
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        RandomEngine engine = positioned();
+        engine.jumpPow2(k);
+        setState(engine.getState());
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        if(steps >= 0 && steps <= limit - pos)
+        {
+            pos += (int)steps;
+            return;
+        }
+
+        RandomEngine engine = positioned();
+        engine.advance(steps);
+        setState(engine.getState());
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return source.getSubstreamExponent();
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return source.getPeriodExponent();
+    }
+
+    @Override
+    public long nextLong()
+    {
+        if(pos == limit)
+            refill();
+
+        return buffer[pos++];
+    }
+
+    @Override
+    public void fillLongs(long[] out, int offset, int length)
+    {
+        if(offset < 0 || length < 0 || offset > out.length - length)
+            throw new IndexOutOfBoundsException("Invalid range [" + offset + ", " + (offset + length) + ") for an array of length " + out.length);
+
+        while(length > 0)
+        {
+            if(pos == limit)
+                refill();
+
+            int count = Math.min(length, limit - pos);
+            System.arraycopy(buffer, pos, out, offset, count);
+            pos += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+
+package optefx.util.random;
+
+/**
+ * Implements a sampler of the Cauchy distribution. Each value is computed as
+ * the ratio of two standard normal values drawn through the ziggurat method,
+ * which avoids the evaluation of trigonometric functions.
+ * @author Enrique Urra C.
+ */
+public final class CauchySampler extends ContinuousSampler
+{
+    private final double location;
+    private final double scale;
+
+    /**
+     * Creates a sampler of the standard Cauchy distribution.
+     */
+    public CauchySampler()
+    {
+        this(0.0, 1.0);
+    }
+
+    /**
+     * Creates a sampler of the Cauchy distribution.
+     * @param location The location of the distribution.
+     * @param scale The scale of the distribution.
+     */
+    public CauchySampler(double location, double scale)
+    {
+        if(!(scale > 0.0))
+            throw new IllegalArgumentException("The scale must be positive");
+
+        this.location = location;
+        this.scale = scale;
+    }
+
+    public double getLocation()
+    {
+        return location;
+    }
+
+    public double getScale()
+    {
+        return scale;
+    }
+
+    @Override
+    public double sample(RandomEngine engine)
+    {
+        double den;
+
+        do
+        {
+            den = Ziggurat.normal(engine);
+        }
+        while(den == 0.0);
+
+        return location + scale * (Ziggurat.normal(engine) / den);
+    }
+}
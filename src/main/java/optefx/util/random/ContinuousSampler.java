@@ -0,0 +1,66 @@
+
+package optefx.util.random;
+
+/**
+ * Defines a sampler of a continuous probability distribution. The samplers are
+ * immutable and can be shared between threads, as the random bits are taken
+ * from the provided engine, or from the current engine of the random tool.
+ * @author Enrique Urra C.
+ */
+public abstract class ContinuousSampler
+{
+    /**
+     * Draws a value from the distribution.
+     * @param engine The engine to use.
+     * @return The value drawn.
+     */
+    public abstract double sample(RandomEngine engine);
+
+    /**
+     * Draws a value from the distribution, by using the current engine of the
+     * random tool.
+     * @return The value drawn.
+     */
+    public final double sample()
+    {
+        return sample(RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Fills a range of an array with values drawn from the distribution.
+     * @param out The array to fill.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     * @param engine The engine to use.
+     */
+    public void fill(double[] out, int offset, int length, RandomEngine engine)
+    {
+        if(offset < 0 || length < 0 || offset > out.length - length)
+            throw new IndexOutOfBoundsException("Invalid range [" + offset + ", " + (offset + length) + ") for an array of length " + out.length);
+
+        int end = offset + length;
+
+        for(int i = offset; i < end; i++)
+            out[i] = sample(engine);
+    }
+
+    /**
+     * Fills an array with values drawn from the distribution.
+     * @param out The array to fill.
+     * @param engine The engine to use.
+     */
+    public final void fill(double[] out, RandomEngine engine)
+    {
+        fill(out, 0, out.length, engine);
+    }
+
+    /**
+     * Fills an array with values drawn from the distribution, by using the
+     * current engine of the random tool.
+     * @param out The array to fill.
+     */
+    public final void fill(double[] out)
+    {
+        fill(out, 0, out.length, RandomTool.getInstance().getEngine());
+    }
+}
@@ -0,0 +1,141 @@
+
+package optefx.util.random;
+
+/**
+ * Provides random access to the values of the Philox4x32-10 counter-based
+ * function. Each value is determined only by the key of this object and the
+ * position requested, so it can be computed in constant time and without any
+ * shared state. This allows to evaluate a population in parallel with results
+ * that do not depend on the amount of threads or the order of the evaluations:
+ * 
+ *      CounterBasedRandom random = new CounterBasedRandom(seed);
+ *      double u = random.getDouble(individualId, generation, drawIndex);
+ * 
+ * Objects of this class are immutable and can be shared between threads.
+ * @author Enrique Urra C.
+ */
+public final class CounterBasedRandom
+{
+    private final long key;
+
+    /**
+     * Creates the object with a specific key.
+     * @param key The key.
+     */
+    public CounterBasedRandom(long key)
+    {
+        this.key = key;
+    }
+
+    public long getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Gets the random long of a position in a stream.
+     * @param stream The identifier of the stream.
+     * @param index The position in the stream.
+     * @return The random long.
+     */
+    public long getLong(long stream, long index)
+    {
+        return PhiloxEngine.block(key, stream, index >>> 1, null, (int)index & 1);
+    }
+
+    /**
+     * Gets the random long of a draw performed by an individual in a 
+     * generation. Up to 2^32 draws can be performed by each individual in each
+     * generation.
+     * @param id The identifier of the individual.
+     * @param generation The generation.
+     * @param draw The index of the draw.
+     * @return The random long.
+     */
+    public long getLong(long id, int generation, int draw)
+    {
+        return getLong(id, ((long)generation << 32) | (draw & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Gets the random double, between 0.0 (inclusive) and 1.0 (exclusive), of
+     * a position in a stream.
+     * @param stream The identifier of the stream.
+     * @param index The position in the stream.
+     * @return The random double.
+     */
+    public double getDouble(long stream, long index)
+    {
+        return (getLong(stream, index) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets the random double, between 0.0 (inclusive) and 1.0 (exclusive), of
+     * a draw performed by an individual in a generation.
+     * @param id The identifier of the individual.
+     * @param generation The generation.
+     * @param draw The index of the draw.
+     * @return The random double.
+     */
+    public double getDouble(long id, int generation, int draw)
+    {
+        return (getLong(id, generation, draw) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets the random integer, between zero and the provided bound (exclusive),
+     * of a position in a stream. As a single long is used without rejection, 
+     * the bias of the result is at most bound / 2^64.
+     * @param stream The identifier of the stream.
+     * @param index The position in the stream.
+     * @param bound The bound (exclusive).
+     * @return The random int.
+     */
+    public int getInt(long stream, long index, int bound)
+    {
+        if(bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive");
+
+        return (int)Pcg64Engine.multiplyHighUnsigned(getLong(stream, index), bound);
+    }
+
+    /**
+     * Gets the random integer, between zero and the provided bound (exclusive),
+     * of a draw performed by an individual in a generation.
+     * @param id The identifier of the individual.
+     * @param generation The generation.
+     * @param draw The index of the draw.
+     * @param bound The bound (exclusive).
+     * @return The random int.
+     */
+    public int getInt(long id, int generation, int draw, int bound)
+    {
+        return getInt(id, ((long)generation << 32) | (draw & 0xFFFFFFFFL), bound);
+    }
+
+    /**
+     * Creates a sequential engine over a stream of this object, starting at
+     * the position zero. The engine can be used with any component that 
+     * requires a RandomEngine, e.g., the samplers of this package.
+     * @param stream The identifier of the stream.
+     * @return The engine.
+     */
+    public PhiloxEngine createEngine(long stream)
+    {
+        return new PhiloxEngine(key, stream);
+    }
+
+    /**
+     * Creates a sequential engine over the draws of an individual in a 
+     * generation, starting at the draw zero.
+     * @param id The identifier of the individual.
+     * @param generation The generation.
+     * @return The engine.
+     */
+    public PhiloxEngine createEngine(long id, int generation)
+    {
+        PhiloxEngine engine = new PhiloxEngine(key, id);
+        engine.setIndex((long)generation << 32);
+        return engine;
+    }
+}
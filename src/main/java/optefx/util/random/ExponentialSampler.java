@@ -0,0 +1,43 @@
+
+package optefx.util.random;
+
+/**
+ * Implements a sampler of the exponential distribution, based on the ziggurat
+ * method.
+ * @author Enrique Urra C.
+ */
+public final class ExponentialSampler extends ContinuousSampler
+{
+    private final double rate;
+
+    /**
+     * Creates a sampler of the exponential distribution with unit rate.
+     */
+    public ExponentialSampler()
+    {
+        this(1.0);
+    }
+
+    /**
+     * Creates a sampler of the exponential distribution.
+     * @param rate The rate of the distribution (inverse of the mean).
+     */
+    public ExponentialSampler(double rate)
+    {
+        if(!(rate > 0.0))
+            throw new IllegalArgumentException("The rate must be positive");
+
+        this.rate = rate;
+    }
+
+    public double getRate()
+    {
+        return rate;
+    }
+
+    @Override
+    public double sample(RandomEngine engine)
+    {
+        return Ziggurat.exponential(engine) / rate;
+    }
+}
@@ -0,0 +1,217 @@
+
+package optefx.util.random;
+
+import java.util.Arrays;
+
+/**
+ * Implements a weighted sampler for weights that change between draws, based
+ * on a Fenwick tree (binary indexed tree) of the cumulative weights. Both the 
+ * draws and the weight updates are performed in logarithmic time.
+ *
+ * As the cumulative weights are updated incrementally, they may keep rounding
+ * residues. Therefore, the amount of positive weights is tracked exactly, and
+ * the tree is reset when all the weights become zero. A draw that falls on a
+ * zero weight because of the residues is repeated a few times, after which
+ * the index is found through a linear scan of the weights.
+ * @author Enrique Urra C.
+ */
+public final class FenwickSampler extends WeightedSampler
+{
+    private final double[] weights;
+    private final double[] tree;
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final int topStep;
+    private double total;
+    private int positiveCount;
+
+    /**
+     * Creates the sampler with a number of indices, all of them with a weight
+     * of zero.
+     * @param size The amount of indices.
+     */
+    public FenwickSampler(int size)
+    {
+        if(size <= 0)
+            throw new IllegalArgumentException("The size must be positive");
+
+        weights = new double[size];
+        tree = new double[size + 1];
+        topStep = Integer.highestOneBit(size);
+    }
+
+    /**
+     * Creates the sampler from a set of initial weights.
+     * @param initialWeights The non-negative weights.
+     */
+    public FenwickSampler(double[] initialWeights)
+    {
+        this(initialWeights.length);
+        int n = weights.length;
+
+        for(int i = 0; i < n; i++)
+        {
+            checkWeight(i, initialWeights[i]);
+            weights[i] = initialWeights[i];
+
+            if(weights[i] > 0.0)
+                positiveCount++;
+
+            tree[i + 1] += initialWeights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+
+            if(parent <= n)
+                tree[parent] += tree[i + 1];
+        }
+
+        total = prefixSum(n);
+    }
+
+    /**
+     * Computes the sum of the weights of the first indices.
+     * @param count The amount of indices to sum.
+     * @return The sum.
+     */
+    private double prefixSum(int count)
+    {
+        double sum = 0.0;
+
+        for(int i = count; i > 0; i -= i & -i)
+            sum += tree[i];
+
+        return sum;
+    }
+
+    @Override
+    public int size()
+    {
+        return weights.length;
+    }
+
+    /**
+     * Gets the current weight of an index.
+     * @param index The index.
+     * @return The weight.
+     */
+    public double getWeight(int index)
+    {
+        return weights[index];
+    }
+
+    /**
+     * Gets the sum of the current weights.
+     * @return The sum of the weights.
+     */
+    public double getTotalWeight()
+    {
+        return total;
+    }
+
+    /**
+     * Sets the weight of an index.
+     * @param index The index.
+     * @param weight The new non-negative weight.
+     */
+    public void setWeight(int index, double weight)
+    {
+        checkWeight(index, weight);
+        double previous = weights[index];
+        weights[index] = weight;
+
+        if(previous > 0.0)
+            positiveCount--;
+
+        if(weight > 0.0)
+            positiveCount++;
+
+        if(positiveCount == 0)
+        {
+            // Discards the rounding residues of the tree
+            Arrays.fill(tree, 0.0);
+            total = 0.0;
+            return;
+        }
+
+        double delta = weight - previous;
+
+        for(int i = index + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+
+        total = prefixSum(weights.length);
+    }
+
+    /**
+     * Adds a value to the weight of an index.
+     * @param index The index.
+     * @param delta The value to add. The resulting weight cannot be negative.
+     */
+    public void addWeight(int index, double delta)
+    {
+        setWeight(index, weights[index] + delta);
+    }
+
+    @Override
+    public int sample(RandomEngine engine)
+    {
+        if(positiveCount == 0)
+            throw new IllegalStateException("At least one weight must be positive");
+
+        int n = weights.length;
+
+        for(int attempt = 0; attempt < MAX_ATTEMPTS && total > 0.0; attempt++)
+        {
+            double target = engine.nextDouble() * total;
+            int pos = 0;
+
+            for(int step = topStep; step > 0; step >>= 1)
+            {
+                int next = pos + step;
+
+                if(next <= n && tree[next] <= target)
+                {
+                    pos = next;
+                    target -= tree[next];
+                }
+            }
+
+            // Rounding errors may go past the last positive weight
+            if(pos < n && weights[pos] > 0.0)
+                return pos;
+        }
+
+        return sampleLinear(engine);
+    }
+
+    /**
+     * Draws an index through a linear scan of the weights, without the 
+     * residues of the tree.
+     * @param engine The engine to use.
+     * @return The index.
+     */
+    private int sampleLinear(RandomEngine engine)
+    {
+        int n = weights.length;
+        double sum = 0.0;
+
+        for(int i = 0; i < n; i++)
+            sum += weights[i];
+
+        double target = engine.nextDouble() * sum;
+        int last = -1;
+
+        for(int i = 0; i < n; i++)
+        {
+            if(weights[i] > 0.0)
+            {
+                last = i;
+                target -= weights[i];
+
+                if(target < 0.0)
+                    return i;
+            }
+        }
+
+        // Rounding errors may go past the last positive weight
+        return last;
+    }
+}
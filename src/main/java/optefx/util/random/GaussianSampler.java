@@ -0,0 +1,51 @@
+
+package optefx.util.random;
+
+/**
+ * Implements a sampler of the normal distribution, based on the ziggurat
+ * method.
+ * @author Enrique Urra C.
+ */
+public final class GaussianSampler extends ContinuousSampler
+{
+    private final double mean;
+    private final double deviation;
+
+    /**
+     * Creates a sampler of the standard normal distribution.
+     */
+    public GaussianSampler()
+    {
+        this(0.0, 1.0);
+    }
+
+    /**
+     * Creates a sampler of the normal distribution.
+     * @param mean The mean of the distribution.
+     * @param deviation The standard deviation of the distribution.
+     */
+    public GaussianSampler(double mean, double deviation)
+    {
+        if(!(deviation >= 0.0))
+            throw new IllegalArgumentException("The standard deviation cannot be negative");
+
+        this.mean = mean;
+        this.deviation = deviation;
+    }
+
+    public double getMean()
+    {
+        return mean;
+    }
+
+    public double getDeviation()
+    {
+        return deviation;
+    }
+
+    @Override
+    public double sample(RandomEngine engine)
+    {
+        return mean + deviation * Ziggurat.normal(engine);
+    }
+}
@@ -0,0 +1,160 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the Halton low-discrepancy sequence, which uses the radical 
+ * inverse of the point index in the base of the i-th prime number for the 
+ * dimension i. Any index can be generated directly, so skipping is performed
+ * in constant time.
+ *
+ * A scrambled variant is available by providing a seed. Each digit position of
+ * each dimension is permuted by an independent random permutation of the 
+ * digits, which removes the correlations between the dimensions with large 
+ * bases that affect the plain sequence.
+ * @author Enrique Urra C.
+ */
+public final class HaltonSequence extends LowDiscrepancySequence
+{
+    /**
+     * The maximum amount of dimensions.
+     */
+    public static final int MAX_DIMENSIONS = 1024;
+
+    private final int[] bases;
+    private final int[][][] permutations;
+
+    /**
+     * Creates the (unscrambled) sequence.
+     * @param dimensions The amount of dimensions.
+     */
+    public HaltonSequence(int dimensions)
+    {
+        this(dimensions, false, 0);
+    }
+
+    /**
+     * Creates a scrambled sequence.
+     * @param dimensions The amount of dimensions.
+     * @param scrambleSeed The seed of the scrambling.
+     */
+    public HaltonSequence(int dimensions, long scrambleSeed)
+    {
+        this(dimensions, true, scrambleSeed);
+    }
+
+    private HaltonSequence(int dimensions, boolean scrambled, long scrambleSeed)
+    {
+        super(dimensions);
+
+        if(dimensions > MAX_DIMENSIONS)
+            throw new IllegalArgumentException("The maximum amount of dimensions is " + MAX_DIMENSIONS);
+
+        bases = new int[dimensions];
+        int count = 0;
+
+        for(int candidate = 2; count < dimensions; candidate++)
+        {
+            boolean prime = true;
+
+            for(int i = 0; i < count && bases[i] * bases[i] <= candidate; i++)
+            {
+                if(candidate % bases[i] == 0)
+                {
+                    prime = false;
+                    break;
+                }
+            }
+
+            if(prime)
+                bases[count++] = candidate;
+        }
+
+        if(scrambled)
+        {
+            permutations = new int[dimensions][][];
+            SeedSequence seeds = new SeedSequence(scrambleSeed);
+
+            for(int d = 0; d < dimensions; d++)
+            {
+                RandomEngine engine = seeds.createEngine(d, RandomEngineType.SPLITMIX64);
+                int base = bases[d];
+                // Enough digits to reach the precision of a double
+                int digits = (int)Math.ceil(53 / (Math.log(base) / Math.log(2)));
+                permutations[d] = new int[digits][base];
+
+                for(int k = 0; k < digits; k++)
+                {
+                    for(int j = 0; j < base; j++)
+                        permutations[d][k][j] = j;
+
+                    ShuffleTools.shuffle(permutations[d][k], engine);
+                }
+            }
+        }
+        else
+        {
+            permutations = null;
+        }
+    }
+
+    /**
+     * Computes the radical inverse of an index.
+     * @param n The index.
+     * @param base The base.
+     * @return The radical inverse.
+     */
+    private static double radicalInverse(long n, int base)
+    {
+        double inv = 1.0 / base;
+        double factor = inv;
+        double res = 0.0;
+
+        while(n > 0)
+        {
+            res += (n % base) * factor;
+            n /= base;
+            factor *= inv;
+        }
+
+        return res;
+    }
+
+    /**
+     * Computes the scrambled radical inverse of an index. All the digit
+     * positions are processed, as the permutations may map the leading zeros
+     * to other digits.
+     * @param n The index.
+     * @param base The base.
+     * @param perms The permutations of each digit position.
+     * @return The scrambled radical inverse.
+     */
+    private static double scrambledRadicalInverse(long n, int base, int[][] perms)
+    {
+        double inv = 1.0 / base;
+        double factor = inv;
+        double res = 0.0;
+
+        for(int k = 0; k < perms.length; k++)
+        {
+            res += perms[k][(int)(n % base)] * factor;
+            n /= base;
+            factor *= inv;
+        }
+
+        // Avoid rounding up to one
+        return Math.min(res, 0x1.fffffffffffffp-1);
+    }
+
+    @Override
+    protected void generate(double[] out, int offset)
+    {
+        for(int d = 0; d < dimensions; d++)
+        {
+            out[offset + d] = permutations == null ? 
+                radicalInverse(index, bases[d]) : 
+                scrambledRadicalInverse(index, bases[d], permutations[d]);
+        }
+
+        index++;
+    }
+}
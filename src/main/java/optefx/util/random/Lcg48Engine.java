@@ -0,0 +1,202 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the 48-bit linear congruential engine used by java.util.Random.
+ * The generated sequences are identical to the ones of a Random object created
+ * with the same seed, so previous experiments can be replicated. As the state
+ * is not shared, no atomic operations are performed in each generation. Jumps
+ * are performed in logarithmic time. As the period is 2^48, substreams are 
+ * 2^32 longs long, and up to 2^15 of them do not overlap.
+ * @author Enrique Urra C.
+ */
+public final class Lcg48Engine extends RandomEngine
+{
+    static final long MULTIPLIER = 0x5DEECE66DL;
+    static final long ADDEND = 0xBL;
+    static final long MASK = (1L << 48) - 1;
+
+    private long state;
+    private boolean haveNextGaussian;
+    private double nextGaussian;
+
+    public Lcg48Engine(long seed)
+    {
+        setSeed(seed);
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return RandomEngineType.LCG48;
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        state = (seed ^ MULTIPLIER) & MASK;
+        haveNextGaussian = false;
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { state, haveNextGaussian ? 1 : 0, Double.doubleToRawLongBits(nextGaussian) };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        checkState(state, 3);
+        this.state = state[0] & MASK;
+        this.haveNextGaussian = state[1] != 0;
+        this.nextGaussian = Double.longBitsToDouble(state[2]);
+    }
+
+    /**
+     * Advances the internal state by the provided amount of steps, in 
+     * logarithmic time. Each nextLong() call performs two steps.
+     * @param steps The amount of steps.
+     */
+    private void skipSteps(long steps)
+    {
+        long accMult = 1;
+        long accPlus = 0;
+        long curMult = MULTIPLIER;
+        long curPlus = ADDEND;
+
+        while(steps != 0)
+        {
+            if((steps & 1) != 0)
+            {
+                accMult = (accMult * curMult) & MASK;
+                accPlus = (accPlus * curMult + curPlus) & MASK;
+            }
+
+            curPlus = ((curMult + 1) * curPlus) & MASK;
+            curMult = (curMult * curMult) & MASK;
+            steps >>>= 1;
+        }
+
+        state = (accMult * state + accPlus) & MASK;
+        haveNextGaussian = false;
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The exponent cannot be negative");
+
+        // The period is 2^48 steps, so longer jumps have no effect
+        if(k < 47)
+            skipSteps(1L << (k + 1));
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        skipSteps((steps << 1) & MASK);
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return 32;
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        // Each long consumes two steps of the 48-bit state
+        return 47;
+    }
+
+    /**
+     * Generates the next random bits, as in java.util.Random.
+     * @param bits The amount of bits.
+     * @return The random bits.
+     */
+    private int next(int bits)
+    {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int)(state >>> (48 - bits));
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return ((long)next(32) << 32) + next(32);
+    }
+
+    @Override
+    public int nextInt()
+    {
+        return next(32);
+    }
+
+    @Override
+    public int nextInt(int bound)
+    {
+        if(bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive");
+
+        int r = next(31);
+        int m = bound - 1;
+
+        if((bound & m) == 0)
+            return (int)((bound * (long)r) >> 31);
+
+        for(int u = r; u - (r = u % bound) + m < 0; u = next(31));
+
+        return r;
+    }
+
+    @Override
+    public double nextDouble()
+    {
+        return (((long)next(26) << 27) + next(27)) * 0x1.0p-53;
+    }
+
+    @Override
+    public float nextFloat()
+    {
+        return next(24) / ((float)(1 << 24));
+    }
+
+    @Override
+    public boolean nextBoolean()
+    {
+        return next(1) != 0;
+    }
+
+    /**
+     * Gets a normally distributed value through the polar method, as in 
+     * java.util.Random.
+     * @return The random gaussian obtained.
+     */
+    @Override
+    public double nextGaussian()
+    {
+        if(haveNextGaussian)
+        {
+            haveNextGaussian = false;
+            return nextGaussian;
+        }
+
+        double v1, v2, s;
+
+        do
+        {
+            v1 = 2.0 * nextDouble() - 1.0;
+            v2 = 2.0 * nextDouble() - 1.0;
+            s = v1 * v1 + v2 * v2;
+        }
+        while(s >= 1.0 || s == 0.0);
+
+        double multiplier = StrictMath.sqrt(-2.0 * StrictMath.log(s) / s);
+        nextGaussian = v2 * multiplier;
+        haveNextGaussian = true;
+        return v1 * multiplier;
+    }
+}
@@ -0,0 +1,146 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the leapfrog partitioning of the sequence of an engine: given a 
+ * number of workers, the worker i takes the longs at the positions i, i + n,
+ * i + 2n, and so on, of the base sequence. Thus, the workers never overlap and
+ * together they consume the base sequence in the same order.
+ *
+ * After each long, the base engine is advanced by n - 1 positions, which is
+ * performed in constant time for the SplitMix64 and Philox engines, and in
+ * logarithmic time for the LCG48 and PCG64 engines. The xoshiro256** engine
+ * generates and discards n - 1 values with up to 256 workers, and performs 
+ * jumps of powers of two with more, so each long costs several draws of the 
+ * base engine (see RandomTool.partition() for a cheaper alternative). The 
+ * derived values (ints, doubles, etc.) are always computed from the 
+ * leapfrogged longs.
+ * @author Enrique Urra C.
+ */
+public final class LeapfrogEngine extends RandomEngine
+{
+    private final RandomEngine base;
+    private final int index;
+    private final int count;
+
+    /**
+     * Creates the engine of a worker.
+     * @param base The base engine, which is copied.
+     * @param index The index of the worker, in the range [0, count).
+     * @param count The amount of workers.
+     */
+    public LeapfrogEngine(RandomEngine base, int index, int count)
+    {
+        if(count <= 0)
+            throw new IllegalArgumentException("The amount of workers must be positive");
+
+        if(index < 0 || index >= count)
+            throw new IllegalArgumentException("The worker index must be in the range [0, " + count + ")");
+
+        this.base = base.copy();
+        this.index = index;
+        this.count = count;
+        this.base.advance(index);
+    }
+
+    /**
+     * Copy constructor.
+     * @param other The engine to copy.
+     */
+    private LeapfrogEngine(LeapfrogEngine other)
+    {
+        this.base = other.base.copy();
+        this.index = other.index;
+        this.count = other.count;
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Gets the type of the base engine.
+     * @return The engine type.
+     */
+    @Override
+    public RandomEngineType getType()
+    {
+        return base.getType();
+    }
+
+    /**
+     * Sets the seed of the base engine, and moves it to the first position of
+     * this worker.
+     * @param seed The seed to set.
+     */
+    @Override
+    public void setSeed(long seed)
+    {
+        base.setSeed(seed);
+        base.advance(index);
+    }
+
+    /**
+     * Gets the state of the base engine. Such state can only be restored in
+     * leapfrog engines with the same worker configuration.
+     * @return The state.
+     */
+    @Override
+    public long[] getState()
+    {
+        return base.getState();
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        base.setState(state);
+    }
+
+    @Override
+    public RandomEngine copy()
+    {
+        return new LeapfrogEngine(this);
+    }
+
+    @Override
+    public long nextLong()
+    {
+        long res = base.nextLong();
+        base.advance(count - 1);
+        return res;
+    }
+
+    /**
+     * Advances this worker by 2^k of its own positions, i.e., the base engine
+     * is advanced by (count * 2^k) positions.
+     * @param k The exponent of the jump length.
+     */
+    @Override
+    public void jumpPow2(int k)
+    {
+        for(int j = 0; j < 32; j++)
+        {
+            if(((count >>> j) & 1) != 0)
+                base.jumpPow2(k + j);
+        }
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return base.getSubstreamExponent();
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return base.getPeriodExponent();
+    }
+}
@@ -0,0 +1,94 @@
+
+package optefx.util.random;
+
+/**
+ * Implements a sampler of symmetric Lévy-stable steps through the algorithm by
+ * Mantegna (1994), commonly used for Lévy flights in optimization algorithms.
+ * Each step is computed as u / |v|^(1 / beta), where u and v are normal values
+ * drawn through the ziggurat method.
+ * @author Enrique Urra C.
+ */
+public final class LevySampler extends ContinuousSampler
+{
+    private static final double[] LANCZOS = {
+        0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+        771.32342877765313, -176.61502916214059, 12.507343278686905,
+        -0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7
+    };
+
+    private final double beta;
+    private final double scale;
+    private final double sigma;
+    private final double exponent;
+
+    /**
+     * Creates a sampler with a stability index of 1.5 and unit scale.
+     */
+    public LevySampler()
+    {
+        this(1.5, 1.0);
+    }
+
+    /**
+     * Creates a sampler of Lévy steps.
+     * @param beta The stability index, in the range (0, 2).
+     * @param scale The scale of the steps.
+     */
+    public LevySampler(double beta, double scale)
+    {
+        if(!(beta > 0.0 && beta < 2.0))
+            throw new IllegalArgumentException("The stability index must be in the range (0, 2)");
+
+        if(!(scale > 0.0))
+            throw new IllegalArgumentException("The scale must be positive");
+
+        this.beta = beta;
+        this.scale = scale;
+        this.sigma = Math.pow(gamma(1.0 + beta) * Math.sin(Math.PI * beta / 2.0) / 
+            (gamma((1.0 + beta) / 2.0) * beta * Math.pow(2.0, (beta - 1.0) / 2.0)), 1.0 / beta);
+        this.exponent = 1.0 / beta;
+    }
+
+    /**
+     * Computes the gamma function through the Lanczos approximation, for 
+     * arguments greater than 0.5.
+     * @param x The argument.
+     * @return The value of the gamma function.
+     */
+    private static double gamma(double x)
+    {
+        x -= 1.0;
+        double a = LANCZOS[0];
+        double t = x + 7.5;
+
+        for(int i = 1; i < LANCZOS.length; i++)
+            a += LANCZOS[i] / (x + i);
+
+        return Math.sqrt(2.0 * Math.PI) * Math.pow(t, x + 0.5) * Math.exp(-t) * a;
+    }
+
+    public double getBeta()
+    {
+        return beta;
+    }
+
+    public double getScale()
+    {
+        return scale;
+    }
+
+    @Override
+    public double sample(RandomEngine engine)
+    {
+        double u = sigma * Ziggurat.normal(engine);
+        double v;
+
+        do
+        {
+            v = Ziggurat.normal(engine);
+        }
+        while(v == 0.0);
+
+        return scale * u / Math.pow(Math.abs(v), exponent);
+    }
+}
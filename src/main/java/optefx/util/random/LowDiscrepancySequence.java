@@ -0,0 +1,124 @@
+
+package optefx.util.random;
+
+/**
+ * Defines a low-discrepancy (quasi-random) sequence of points in the unit
+ * hypercube [0, 1)^d. Such points cover the space more evenly than 
+ * pseudo-random points, so they are useful for the sampling of initial 
+ * populations or for designs of experiments.
+ *
+ * Each sequence maintains the index of the next point to generate, which can
+ * be moved through the skipTo() method. Sequences are not thread-safe.
+ * @author Enrique Urra C.
+ */
+public abstract class LowDiscrepancySequence
+{
+    /**
+     * The amount of dimensions.
+     */
+    protected final int dimensions;
+    /**
+     * The index of the next point.
+     */
+    protected long index;
+
+    /**
+     * Creates the sequence.
+     * @param dimensions The amount of dimensions.
+     */
+    protected LowDiscrepancySequence(int dimensions)
+    {
+        if(dimensions <= 0)
+            throw new IllegalArgumentException("The amount of dimensions must be positive");
+
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Gets the amount of dimensions of the points.
+     * @return The amount of dimensions.
+     */
+    public final int getDimensions()
+    {
+        return dimensions;
+    }
+
+    /**
+     * Gets the index of the next point to generate.
+     * @return The index.
+     */
+    public final long getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Moves the sequence to a specific index.
+     * @param index The index of the next point to generate.
+     */
+    public void skipTo(long index)
+    {
+        if(index < 0)
+            throw new IllegalArgumentException("The index cannot be negative");
+
+        this.index = index;
+    }
+
+    /**
+     * Generates the next point of the sequence.
+     * @param out The array in which the point is stored.
+     * @param offset The position of the array in which the first coordinate
+     * is stored.
+     */
+    protected abstract void generate(double[] out, int offset);
+
+    /**
+     * Generates the next point of the sequence.
+     * @param out The array in which the point is stored, of length equal to 
+     * the amount of dimensions or greater.
+     */
+    public final void nextPoint(double[] out)
+    {
+        if(out.length < dimensions)
+            throw new IllegalArgumentException("The array must have at least " + dimensions + " elements");
+
+        generate(out, 0);
+    }
+
+    /**
+     * Generates the next point of the sequence.
+     * @return The point.
+     */
+    public final double[] nextPoint()
+    {
+        double[] res = new double[dimensions];
+        generate(res, 0);
+        return res;
+    }
+
+    /**
+     * Fills a matrix with the next points of the sequence, one point per row.
+     * @param points The matrix to fill.
+     */
+    public final void fill(double[][] points)
+    {
+        for(int i = 0; i < points.length; i++)
+            nextPoint(points[i]);
+    }
+
+    /**
+     * Fills a flat array with the next points of the sequence, stored in 
+     * row-major order, i.e., the coordinate j of the point i is stored in the
+     * position (i * dimensions + j).
+     * @param out The array to fill.
+     * @param count The amount of points to generate.
+     */
+    public final void fill(double[] out, int count)
+    {
+        if(count < 0 || (long)count * dimensions > out.length)
+            throw new IllegalArgumentException("The array cannot store " + count + " points of " + dimensions + " dimensions");
+
+        for(int i = 0; i < count; i++)
+            generate(out, i * dimensions);
+    }
+}
@@ -2,7 +2,7 @@
 package optefx.util.random;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
 
@@ -11,6 +11,9 @@ import java.util.Random;
  * Random object for each thread on which the manager was used. This 
  * implementation also performs a clean-up of random objects associated with 
  * dead threads every a number of times the manager has been used. 
+ * 
+ * The threads are kept in the order they accessed the tool for the first time,
+ * which is used to assign the streams when a snapshot is restored.
  * @author Enrique Urra C.
  */
 class MultiThreadRandomTool extends RandomTool
@@ -23,13 +26,28 @@ class MultiThreadRandomTool extends RandomTool
      * An access' counter, for internal cleanup.
      */
     private int accessCount;
+    /**
+     * The type of the engines to create.
+     */
+    private final RandomEngineType engineType;
+    /**
+     * A restored snapshot, whose streams are assigned to the threads that 
+     * access the tool after the restoration.
+     */
+    private RandomState restoredState;
+    /**
+     * The next stream of the restored snapshot to assign.
+     */
+    private int restoredIndex;
 
     /**
-     * Default constructor.
+     * Creates the tool with a specific engine type.
+     * @param engineType The type of the engines.
      */
-    public MultiThreadRandomTool()
+    public MultiThreadRandomTool(RandomEngineType engineType)
     {
-        threadsTable = new HashMap<Thread, RandomItem>();
+        this.engineType = engineType;
+        threadsTable = new LinkedHashMap<Thread, RandomItem>();
     }
     
     /**
@@ -65,7 +83,14 @@ class MultiThreadRandomTool extends RandomTool
         
         if(item == null)
         {
-            item = new RandomItem(createRandomSeed());
+            item = new RandomItem(engineType, createRandomSeed());
+            
+            if(restoredState != null && restoredIndex < restoredState.getStreamCount())
+            {
+                item.restore(restoredState.getSeed(restoredIndex), restoredState.getState(restoredIndex));
+                restoredIndex++;
+            }
+            
             threadsTable.put(currThread, item);
         }
         
@@ -78,6 +103,12 @@ class MultiThreadRandomTool extends RandomTool
         return item;
     }
     
+    @Override
+    public RandomEngine getEngine()
+    {
+        return getItem().getEngine();
+    }
+    
     @Override
     public Random getRandom()
     {
@@ -87,7 +118,7 @@ class MultiThreadRandomTool extends RandomTool
     @Override
     public final long createRandomSeed()
     {
-        return System.currentTimeMillis();
+        return createUniqueSeed();
     }
 
     @Override
@@ -101,4 +132,43 @@ class MultiThreadRandomTool extends RandomTool
     {
         return getItem().getSeed();
     }
-}
\ No newline at end of file
+
+    @Override
+    RandomItem getCurrentItem()
+    {
+        return getItem();
+    }
+
+    @Override
+    RandomState captureState()
+    {
+        int count = threadsTable.size();
+        long[] seeds = new long[count];
+        long[][] states = new long[count][];
+        int i = 0;
+        
+        for(RandomItem item : threadsTable.values())
+        {
+            seeds[i] = item.getSeed();
+            states[i] = item.getState();
+            i++;
+        }
+        
+        return new RandomState(MODE_MULTI_THREAD, engineType, getSeed(), seeds, states);
+    }
+
+    /**
+     * Restores a snapshot. The current thread takes the first stream of the
+     * snapshot, and the remaining streams are assigned to other threads in the
+     * order they access the tool.
+     * @param state The snapshot to restore.
+     */
+    @Override
+    void restoreState(RandomState state)
+    {
+        threadsTable.clear();
+        restoredState = state;
+        restoredIndex = 0;
+        getItem();
+    }
+}
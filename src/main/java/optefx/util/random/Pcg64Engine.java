@@ -0,0 +1,188 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the PCG64 engine (O'Neill, 2014), which uses a 128-bit linear
+ * congruential state and the XSL-RR output permutation. Its period is 2^128,
+ * and jumps are performed in logarithmic time.
+ * @author Enrique Urra C.
+ */
+public final class Pcg64Engine extends RandomEngine
+{
+    static final long MULTIPLIER_HI = 0x2360ED051FC65DA4L;
+    static final long MULTIPLIER_LO = 0x4385DF649FCCF645L;
+
+    private long stateHi;
+    private long stateLo;
+    private long incHi;
+    private long incLo;
+
+    public Pcg64Engine(long seed)
+    {
+        setSeed(seed);
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return RandomEngineType.PCG64;
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        long initHi = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        long initLo = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        long seqHi = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        long seqLo = mix64(seed + SplitMix64Engine.GOLDEN_GAMMA);
+
+        incHi = (seqHi << 1) | (seqLo >>> 63);
+        incLo = (seqLo << 1) | 1L;
+        stateHi = 0;
+        stateLo = 0;
+        step();
+
+        long lo = stateLo + initLo;
+        stateHi += initHi + (Long.compareUnsigned(lo, stateLo) < 0 ? 1 : 0);
+        stateLo = lo;
+        step();
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { stateHi, stateLo, incHi, incLo };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        checkState(state, 4);
+
+        if((state[3] & 1) == 0)
+            throw new IllegalArgumentException("The increment must be odd");
+
+        stateHi = state[0];
+        stateLo = state[1];
+        incHi = state[2];
+        incLo = state[3];
+    }
+
+    /**
+     * Computes the high 64 bits of the unsigned product of two longs.
+     * @param x The first factor.
+     * @param y The second factor.
+     * @return The high bits of the product.
+     */
+    static long multiplyHighUnsigned(long x, long y)
+    {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long t = x1 * y0 + ((x0 * y0) >>> 32);
+        long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    /**
+     * Advances the internal state by a 128-bit amount of steps, in logarithmic
+     * time (Brown, 1994).
+     * @param stepsHi The high bits of the amount of steps.
+     * @param stepsLo The low bits of the amount of steps.
+     */
+    private void skipSteps(long stepsHi, long stepsLo)
+    {
+        long accMultHi = 0, accMultLo = 1;
+        long accPlusHi = 0, accPlusLo = 0;
+        long curMultHi = MULTIPLIER_HI, curMultLo = MULTIPLIER_LO;
+        long curPlusHi = incHi, curPlusLo = incLo;
+
+        while((stepsHi | stepsLo) != 0)
+        {
+            if((stepsLo & 1) != 0)
+            {
+                long newMultHi = multiplyHighUnsigned(accMultLo, curMultLo) + accMultLo * curMultHi + accMultHi * curMultLo;
+                accMultLo = accMultLo * curMultLo;
+                accMultHi = newMultHi;
+
+                long plusHi = multiplyHighUnsigned(accPlusLo, curMultLo) + accPlusLo * curMultHi + accPlusHi * curMultLo;
+                long plusLo = accPlusLo * curMultLo;
+                accPlusLo = plusLo + curPlusLo;
+                accPlusHi = plusHi + curPlusHi + (Long.compareUnsigned(accPlusLo, plusLo) < 0 ? 1 : 0);
+            }
+
+            // curPlus = (curMult + 1) * curPlus
+            long m1Lo = curMultLo + 1;
+            long m1Hi = curMultHi + (m1Lo == 0 ? 1 : 0);
+            long newPlusHi = multiplyHighUnsigned(m1Lo, curPlusLo) + m1Lo * curPlusHi + m1Hi * curPlusLo;
+            curPlusLo = m1Lo * curPlusLo;
+            curPlusHi = newPlusHi;
+
+            // curMult = curMult * curMult
+            long newMultHi = multiplyHighUnsigned(curMultLo, curMultLo) + 2 * curMultLo * curMultHi;
+            curMultLo = curMultLo * curMultLo;
+            curMultHi = newMultHi;
+
+            stepsLo = (stepsLo >>> 1) | (stepsHi << 63);
+            stepsHi >>>= 1;
+        }
+
+        long hi = multiplyHighUnsigned(accMultLo, stateLo) + accMultLo * stateHi + accMultHi * stateLo;
+        long lo = accMultLo * stateLo;
+        stateLo = lo + accPlusLo;
+        stateHi = hi + accPlusHi + (Long.compareUnsigned(stateLo, lo) < 0 ? 1 : 0);
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The exponent cannot be negative");
+
+        // The period is 2^128, so longer jumps have no effect
+        if(k < 64)
+            skipSteps(0, 1L << k);
+        else if(k < 128)
+            skipSteps(1L << (k - 64), 0);
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        skipSteps(0, steps);
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return 64;
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return 128;
+    }
+
+    /**
+     * Advances the internal state by one step.
+     */
+    private void step()
+    {
+        long hi = multiplyHighUnsigned(stateLo, MULTIPLIER_LO) + stateLo * MULTIPLIER_HI + stateHi * MULTIPLIER_LO;
+        long lo = stateLo * MULTIPLIER_LO;
+        long newLo = lo + incLo;
+
+        stateHi = hi + incHi + (Long.compareUnsigned(newLo, lo) < 0 ? 1 : 0);
+        stateLo = newLo;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        step();
+        return Long.rotateRight(stateHi ^ stateLo, (int)(stateHi >>> 58));
+    }
+}
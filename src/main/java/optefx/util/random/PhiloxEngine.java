@@ -0,0 +1,228 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the Philox4x32-10 counter-based engine (Salmon et al., 2011). The
+ * output is a bijective function of a 64-bit key and a 128-bit counter, so any
+ * position of the sequence can be computed directly without any state. This
+ * engine generates the sequence of a single stream, i.e., the counter is
+ * composed by a 64-bit stream identifier and a 64-bit block index. Each block 
+ * provides two random longs. For random access to any (key, counter) position,
+ * see the CounterBasedRandom class.
+ * @author Enrique Urra C.
+ */
+public final class PhiloxEngine extends RandomEngine
+{
+    private static final int M0 = 0xD2511F53;
+    private static final int M1 = 0xCD9E8D57;
+    private static final int W0 = 0x9E3779B9;
+    private static final int W1 = 0xBB67AE85;
+
+    private long key;
+    private long stream;
+    private long index;
+    private final long[] block = new long[2];
+    private boolean cached;
+    private long cachedIndex;
+
+    /**
+     * Creates the engine for the stream zero of a key.
+     * @param seed The key of the engine.
+     */
+    public PhiloxEngine(long seed)
+    {
+        this(seed, 0);
+    }
+
+    /**
+     * Creates the engine for a stream of a key.
+     * @param key The key of the engine.
+     * @param stream The identifier of the stream.
+     */
+    public PhiloxEngine(long key, long stream)
+    {
+        this.key = key;
+        this.stream = stream;
+    }
+
+    /**
+     * Computes a block of the Philox4x32-10 function. 
+     * @param key The key.
+     * @param counterHi The high 64 bits of the counter.
+     * @param counterLo The low 64 bits of the counter.
+     * @param out The array in which the two longs of the block are stored, or
+     * null if only the returned long is required.
+     * @param half The index of the long of the block to return (0 or 1).
+     * @return The requested long of the block.
+     */
+    static long block(long key, long counterHi, long counterLo, long[] out, int half)
+    {
+        int c0 = (int)counterLo;
+        int c1 = (int)(counterLo >>> 32);
+        int c2 = (int)counterHi;
+        int c3 = (int)(counterHi >>> 32);
+        int k0 = (int)key;
+        int k1 = (int)(key >>> 32);
+
+        for(int round = 0; round < 10; round++)
+        {
+            long p0 = (M0 & 0xFFFFFFFFL) * (c0 & 0xFFFFFFFFL);
+            long p1 = (M1 & 0xFFFFFFFFL) * (c2 & 0xFFFFFFFFL);
+            int n0 = (int)(p1 >>> 32) ^ c1 ^ k0;
+            int n2 = (int)(p0 >>> 32) ^ c3 ^ k1;
+
+            c0 = n0;
+            c1 = (int)p1;
+            c2 = n2;
+            c3 = (int)p0;
+            k0 += W0;
+            k1 += W1;
+        }
+
+        long lo = ((long)c1 << 32) | (c0 & 0xFFFFFFFFL);
+        long hi = ((long)c3 << 32) | (c2 & 0xFFFFFFFFL);
+
+        if(out != null)
+        {
+            out[0] = lo;
+            out[1] = hi;
+        }
+
+        return half == 0 ? lo : hi;
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return RandomEngineType.PHILOX;
+    }
+
+    /**
+     * Sets the key of the engine, restarting the stream zero.
+     * @param seed The key.
+     */
+    @Override
+    public void setSeed(long seed)
+    {
+        key = seed;
+        stream = 0;
+        index = 0;
+        cached = false;
+    }
+
+    /**
+     * Gets the key of the engine.
+     * @return The key.
+     */
+    public long getKey()
+    {
+        return key;
+    }
+
+    /**
+     * Gets the identifier of the stream generated by the engine.
+     * @return The stream identifier.
+     */
+    public long getStream()
+    {
+        return stream;
+    }
+
+    /**
+     * Gets the position of the next long to generate in the stream.
+     * @return The position.
+     */
+    public long getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Moves the engine to a position of its stream, in constant time.
+     * @param index The position of the next long to generate.
+     */
+    public void setIndex(long index)
+    {
+        this.index = index;
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The exponent cannot be negative");
+
+        // Each stream has 2^64 positions, so longer jumps have no effect
+        if(k < 64)
+            index += 1L << k;
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        index += steps;
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return 64;
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        // The 2^64 streams of a key, of 2^64 positions each
+        return 128;
+    }
+
+    /**
+     * Creates a substream of this engine, which corresponds to another stream
+     * identifier of the same key. The substream i uses the stream identifier
+     * (stream + i), at the current position.
+     * @param index The index of the substream.
+     * @return The substream.
+     */
+    @Override
+    public RandomEngine createSubstream(long index)
+    {
+        if(index < 0)
+            throw new IllegalArgumentException("The substream index cannot be negative");
+
+        PhiloxEngine res = new PhiloxEngine(key, stream + index);
+        res.index = this.index;
+        return res;
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { key, stream, index };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        checkState(state, 3);
+        key = state[0];
+        stream = state[1];
+        index = state[2];
+        cached = false;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        long current = index++;
+        long blockIndex = current >>> 1;
+
+        if(!cached || blockIndex != cachedIndex)
+        {
+            block(key, stream, blockIndex, block, 0);
+            cachedIndex = blockIndex;
+            cached = true;
+        }
+
+        return block[(int)current & 1];
+    }
+}
@@ -0,0 +1,91 @@
+
+package optefx.util.random;
+
+import java.util.Random;
+
+/**
+ * Adapts a random engine to the java.util.Random interface, for compatibility
+ * with the code that uses the getRandom() method of the random tool.
+ * @author Enrique Urra C.
+ */
+final class RandomAdapter extends Random
+{
+    private static final long serialVersionUID = 1L;
+    
+    private final transient RandomEngine engine;
+    private final transient RandomItem item;
+
+    /**
+     * Creates the adapter.
+     * @param engine The engine to adapt.
+     * @param item The item whose seed is updated when the adapter is seeded,
+     * or null if the engine does not belong to an item.
+     */
+    public RandomAdapter(RandomEngine engine, RandomItem item)
+    {
+        super(0L);
+        this.engine = engine;
+        this.item = item;
+    }
+
+    @Override
+    public synchronized void setSeed(long seed)
+    {
+        // The super constructor calls this method before the engine is set
+        if(engine == null)
+            return;
+        
+        if(item != null)
+            item.setSeed(seed);
+        else
+            engine.setSeed(seed);
+    }
+
+    @Override
+    protected int next(int bits)
+    {
+        return engine.nextInt() >>> (32 - bits);
+    }
+
+    @Override
+    public int nextInt()
+    {
+        return engine.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound)
+    {
+        return engine.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return engine.nextLong();
+    }
+
+    @Override
+    public boolean nextBoolean()
+    {
+        return engine.nextBoolean();
+    }
+
+    @Override
+    public float nextFloat()
+    {
+        return engine.nextFloat();
+    }
+
+    @Override
+    public double nextDouble()
+    {
+        return engine.nextDouble();
+    }
+
+    @Override
+    public double nextGaussian()
+    {
+        return engine.nextGaussian();
+    }
+}
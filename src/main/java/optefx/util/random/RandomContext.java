@@ -0,0 +1,159 @@
+
+package optefx.util.random;
+
+import java.util.function.Supplier;
+
+/**
+ * Defines a replayable random context, which allows to use common random 
+ * numbers in the comparison of stochastic evaluations. A context holds the 
+ * starting point of a stream, and each execution of a task through the run()
+ * or call() methods uses a fresh copy of such stream as the current engine of
+ * the random tool. Therefore, every task executed in the same context observes
+ * exactly the same random numbers, e.g.:
+ * 
+ * RandomContext ctx = RandomContext.capture();
+ * double fa = ctx.call(() -> simulate(a));
+ * double fb = ctx.call(() -> simulate(b));
+ * 
+ * The antithetic() method provides the antithetic counterpart of a context
+ * (see AntitheticEngine), whose executions are negatively correlated with the
+ * executions of the original context.
+ *
+ * The engine is only replaced for the calling thread while the task is 
+ * executed, and the contexts can be nested. The seeded stream of the thread
+ * is not consumed by the tasks.
+ * @author Enrique Urra C.
+ */
+public final class RandomContext
+{
+    private final RandomEngine origin;
+    private final boolean antithetic;
+
+    private RandomContext(RandomEngine origin, boolean antithetic)
+    {
+        this.origin = origin;
+        this.antithetic = antithetic;
+    }
+
+    /**
+     * Creates a context that starts at the current position of the engine of
+     * the random tool, without consuming it.
+     * @return The context.
+     */
+    public static RandomContext capture()
+    {
+        return new RandomContext(RandomTool.getInstance().getEngine().copy(), false);
+    }
+
+    /**
+     * Creates a context that starts at the current position of an engine, 
+     * without consuming it.
+     * @param engine The engine.
+     * @return The context.
+     */
+    public static RandomContext of(RandomEngine engine)
+    {
+        if(engine == null)
+            throw new NullPointerException("Null engine");
+
+        return new RandomContext(engine.copy(), false);
+    }
+
+    /**
+     * Creates a context with a seeded stream of the current engine type of
+     * the random tool.
+     * @param seed The seed.
+     * @return The context.
+     */
+    public static RandomContext fromSeed(long seed)
+    {
+        return new RandomContext(RandomTool.getEngineType().create(seed), false);
+    }
+
+    /**
+     * Creates a context for a replicate of an experiment (see 
+     * RandomTool.getReplicateSeed()). Evaluating several candidates in the 
+     * context of the same replicate uses common random numbers, while 
+     * different replicates remain independent.
+     * @param experimentSeed The seed of the experiment.
+     * @param replicateId The identifier of the replicate.
+     * @return The context.
+     */
+    public static RandomContext forReplicate(long experimentSeed, int replicateId)
+    {
+        return fromSeed(RandomTool.getReplicateSeed(experimentSeed, replicateId));
+    }
+
+    /**
+     * Gets the antithetic counterpart of this context, which starts at the 
+     * same position. Calling this method on an antithetic context provides 
+     * the original one.
+     * @return The antithetic context.
+     */
+    public RandomContext antithetic()
+    {
+        return new RandomContext(origin, !antithetic);
+    }
+
+    public boolean isAntithetic()
+    {
+        return antithetic;
+    }
+
+    /**
+     * Creates a new engine positioned at the start of this context.
+     * @return The engine.
+     */
+    public RandomEngine createEngine()
+    {
+        RandomEngine engine = origin.copy();
+        return antithetic ? new AntitheticEngine(engine) : engine;
+    }
+
+    /**
+     * Executes a task with a fresh copy of the stream of this context as the
+     * current engine of the random tool.
+     * @param task The task to execute.
+     */
+    public void run(Runnable task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        RandomItem item = RandomTool.getInstance().getCurrentItem();
+        item.push(createEngine());
+
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            item.pop();
+        }
+    }
+
+    /**
+     * Executes a task with a fresh copy of the stream of this context as the
+     * current engine of the random tool, and returns its result.
+     * @param task The task to execute.
+     * @return The result of the task.
+     */
+    public <T> T call(Supplier<T> task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        RandomItem item = RandomTool.getInstance().getCurrentItem();
+        item.push(createEngine());
+
+        try
+        {
+            return task.get();
+        }
+        finally
+        {
+            item.pop();
+        }
+    }
+}
@@ -0,0 +1,419 @@
+
+package optefx.util.random;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Defines a pseudo-random number engine. An engine only needs to provide the
+ * generation of 64 random bits and the seeding procedure. The remaining
+ * operations are derived from such bits, although each engine may override
+ * them with specialized versions.
+ *
+ * Bulk methods are also provided to fill arrays and buffers with random values
+ * in a single call, avoiding the resolution of the engine for each value.
+ *
+ * Engines can be advanced through jumps, which allows to partition a single
+ * sequence into non-overlapping substreams, e.g., one for each worker of a
+ * parallel execution (see createSubstream() and LeapfrogEngine). The jumps are
+ * measured in calls to the nextLong() method.
+ *
+ * Engines are not thread-safe. The random tool ensures that each engine is
+ * only used by a single thread at the same time.
+ * @author Enrique Urra C.
+ */
+public abstract class RandomEngine
+{
+    /**
+     * Gets the type of this engine.
+     * @return The engine type.
+     */
+    public abstract RandomEngineType getType();
+
+    /**
+     * Sets the seed of the engine, restarting its sequence.
+     * @param seed The seed to set.
+     */
+    public abstract void setSeed(long seed);
+
+    /**
+     * Gets a copy of the internal state of the engine, which can be used to
+     * continue its sequence later through the setState() method.
+     * @return The state as an array of longs.
+     */
+    public abstract long[] getState();
+
+    /**
+     * Sets the internal state of the engine.
+     * @param state A state previously obtained from an engine of the same
+     * type through the getState() method.
+     */
+    public abstract void setState(long[] state);
+
+    /**
+     * Creates a copy of this engine, with the same state.
+     * @return The copy.
+     */
+    public RandomEngine copy()
+    {
+        RandomEngine res = getType().create(0);
+        res.setState(getState());
+        return res;
+    }
+
+    /**
+     * Advances the engine as if the nextLong() method were called 2^k times.
+     * The jump is performed in constant or logarithmic time, depending on the 
+     * engine.
+     * @param k The exponent of the jump length.
+     */
+    public abstract void jumpPow2(int k);
+
+    /**
+     * Advances the engine as if the nextLong() method were called the provided
+     * amount of times. The default implementation generates and discards the
+     * values for short advances, and performs jumps of powers of two for long
+     * advances.
+     * @param steps The amount of steps to advance, as an unsigned long.
+     */
+    public void advance(long steps)
+    {
+        if(steps >= 0 && steps < 256)
+        {
+            for(long i = 0; i < steps; i++)
+                nextLong();
+
+            return;
+        }
+
+        for(int k = 0; k < 64; k++)
+        {
+            if(((steps >>> k) & 1) != 0)
+                jumpPow2(k);
+        }
+    }
+
+    /**
+     * Gets the exponent of the length of the substreams created by this engine,
+     * i.e., each substream has a length of 2^exponent longs.
+     * @return The exponent.
+     */
+    protected abstract int getSubstreamExponent();
+
+    /**
+     * Gets the exponent of the period of this engine, i.e., the sequence 
+     * repeats itself after 2^exponent longs (or slightly less).
+     * @return The exponent.
+     */
+    protected abstract int getPeriodExponent();
+
+    /**
+     * Gets the amount of non-overlapping substreams that this engine can
+     * create (see createSubstream()).
+     * @return The amount of substreams, or Long.MAX_VALUE if it exceeds the
+     * range of a long.
+     */
+    public final long getSubstreamCount()
+    {
+        int bits = getPeriodExponent() - getSubstreamExponent();
+        return bits >= 63 ? Long.MAX_VALUE : 1L << bits;
+    }
+
+    /**
+     * Creates a substream of the sequence of this engine, by jumping a copy of
+     * the engine. The substream with index i starts after i blocks of 
+     * 2^getSubstreamExponent() longs, so the substreams with different indices
+     * do not overlap as long as each one generates less numbers than the block
+     * length. The substream zero is equivalent to a copy of this engine.
+     * @param index The index of the substream, lower than getSubstreamCount().
+     * @return The substream.
+     */
+    public RandomEngine createSubstream(long index)
+    {
+        if(index < 0)
+            throw new IllegalArgumentException("The substream index cannot be negative");
+
+        if(index >= getSubstreamCount())
+            throw new IllegalArgumentException("The substream " + index + " exceeds the period of the engine, which only has " + getSubstreamCount() + " substreams");
+
+        RandomEngine res = copy();
+        int exponent = getSubstreamExponent();
+
+        for(int j = 0; j < 63; j++)
+        {
+            if(((index >>> j) & 1) != 0)
+                res.jumpPow2(exponent + j);
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks that a state array has the expected length.
+     * @param state The state to check.
+     * @param length The expected length.
+     */
+    static void checkState(long[] state, int length)
+    {
+        if(state == null)
+            throw new NullPointerException("Null state");
+
+        if(state.length != length)
+            throw new IllegalArgumentException("Invalid state length: " + state.length + " (expected " + length + ")");
+    }
+
+    /**
+     * Gets 64 random bits.
+     * @return The random long obtained.
+     */
+    public abstract long nextLong();
+
+    /**
+     * Gets 32 random bits.
+     * @return The random int obtained.
+     */
+    public int nextInt()
+    {
+        return (int)(nextLong() >>> 32);
+    }
+
+    /**
+     * Gets a random integer between zero and the provided bound (exclusive).
+     * The default implementation uses the multiply-and-reject method by Lemire
+     * (https://arxiv.org/abs/1805.10941), which is unbiased and avoids the
+     * division in most of the calls.
+     * @param bound The bound (exclusive).
+     * @return The random int obtained.
+     */
+    public int nextInt(int bound)
+    {
+        if(bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive");
+
+        long m = (nextLong() >>> 32) * bound;
+        long l = m & 0xFFFFFFFFL;
+
+        if(l < bound)
+        {
+            long t = (0x100000000L - bound) % bound;
+
+            while(l < t)
+            {
+                m = (nextLong() >>> 32) * bound;
+                l = m & 0xFFFFFFFFL;
+            }
+        }
+
+        return (int)(m >>> 32);
+    }
+
+    /**
+     * Gets a random double number between 0.0 (inclusive) and 1.0 (exclusive).
+     * @return The random double obtained.
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets a random float number between 0.0 (inclusive) and 1.0 (exclusive).
+     * @return The random float obtained.
+     */
+    public float nextFloat()
+    {
+        return (nextInt() >>> 8) * 0x1.0p-24f;
+    }
+
+    /**
+     * Gets a random boolean value.
+     * @return The random boolean obtained.
+     */
+    public boolean nextBoolean()
+    {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Gets a normally distributed value with zero mean and unit standard
+     * deviation, by using the ziggurat method.
+     * @return The random gaussian obtained.
+     */
+    public double nextGaussian()
+    {
+        return Ziggurat.normal(this);
+    }
+
+    /**
+     * Checks that a range is valid for an array.
+     * @param arrayLength The length of the array.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     */
+    static void checkRange(int arrayLength, int offset, int length)
+    {
+        if(offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new IndexOutOfBoundsException("Invalid range [" + offset + ", " + (offset + length) + ") for an array of length " + arrayLength);
+    }
+
+    /**
+     * Fills a range of an array with random double numbers between the 
+     * provided limits.
+     * @param out The array to fill.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     * @param from The lower limit (inclusive).
+     * @param to The upper limit (exclusive).
+     */
+    public void fillDoubles(double[] out, int offset, int length, double from, double to)
+    {
+        checkRange(out.length, offset, length);
+        double range = to - from;
+        int end = offset + length;
+
+        for(int i = offset; i < end; i++)
+            out[i] = from + range * nextDouble();
+    }
+
+    /**
+     * Fills an array with random double numbers between the provided limits.
+     * @param out The array to fill.
+     * @param from The lower limit (inclusive).
+     * @param to The upper limit (exclusive).
+     */
+    public final void fillDoubles(double[] out, double from, double to)
+    {
+        fillDoubles(out, 0, out.length, from, to);
+    }
+
+    /**
+     * Fills the remaining elements of a buffer with random double numbers
+     * between the provided limits. The position of the buffer is moved to its
+     * limit.
+     * @param out The buffer to fill.
+     * @param from The lower limit (inclusive).
+     * @param to The upper limit (exclusive).
+     */
+    public void fillDoubles(DoubleBuffer out, double from, double to)
+    {
+        int length = out.remaining();
+
+        if(out.hasArray())
+        {
+            fillDoubles(out.array(), out.arrayOffset() + out.position(), length, from, to);
+            out.position(out.limit());
+            return;
+        }
+
+        double range = to - from;
+
+        for(int i = 0; i < length; i++)
+            out.put(from + range * nextDouble());
+    }
+
+    /**
+     * Fills a range of an array with random integers between zero and the 
+     * provided bound (exclusive).
+     * @param out The array to fill.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     * @param bound The bound (exclusive).
+     */
+    public void fillInts(int[] out, int offset, int length, int bound)
+    {
+        checkRange(out.length, offset, length);
+        int end = offset + length;
+
+        for(int i = offset; i < end; i++)
+            out[i] = nextInt(bound);
+    }
+
+    /**
+     * Fills an array with random integers between zero and the provided bound
+     * (exclusive).
+     * @param out The array to fill.
+     * @param bound The bound (exclusive).
+     */
+    public final void fillInts(int[] out, int bound)
+    {
+        fillInts(out, 0, out.length, bound);
+    }
+
+    /**
+     * Fills the remaining elements of a buffer with random integers between
+     * zero and the provided bound (exclusive). The position of the buffer is 
+     * moved to its limit.
+     * @param out The buffer to fill.
+     * @param bound The bound (exclusive).
+     */
+    public void fillInts(IntBuffer out, int bound)
+    {
+        int length = out.remaining();
+
+        if(out.hasArray())
+        {
+            fillInts(out.array(), out.arrayOffset() + out.position(), length, bound);
+            out.position(out.limit());
+            return;
+        }
+
+        for(int i = 0; i < length; i++)
+            out.put(nextInt(bound));
+    }
+
+    /**
+     * Fills a range of an array with random longs.
+     * @param out The array to fill.
+     * @param offset The start of the range.
+     * @param length The length of the range.
+     */
+    public void fillLongs(long[] out, int offset, int length)
+    {
+        checkRange(out.length, offset, length);
+        int end = offset + length;
+
+        for(int i = offset; i < end; i++)
+            out[i] = nextLong();
+    }
+
+    /**
+     * Fills an array with random longs.
+     * @param out The array to fill.
+     */
+    public final void fillLongs(long[] out)
+    {
+        fillLongs(out, 0, out.length);
+    }
+
+    /**
+     * Fills a bitset, stored as an array of longs, with random boolean values.
+     * The bit i is stored in the position (i % 64) of the element (i / 64). 
+     * The bits after the provided count in the last used element are cleared.
+     * @param bits The bitset to fill.
+     * @param count The amount of random booleans to generate.
+     */
+    public void fillBooleans(long[] bits, int count)
+    {
+        int words = (count + 63) >>> 6;
+        checkRange(bits.length, 0, words);
+
+        for(int i = 0; i < words; i++)
+            bits[i] = nextLong();
+
+        if((count & 63) != 0)
+            bits[words - 1] &= -1L >>> (64 - (count & 63));
+    }
+
+    /**
+     * Implements the SplitMix64 mixing function, used by the engines to expand
+     * a single seed into their internal state.
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
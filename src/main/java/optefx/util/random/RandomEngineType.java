@@ -0,0 +1,73 @@
+
+package optefx.util.random;
+
+/**
+ * Enumerates the random engines that can be used by the random tool.
+ * @author Enrique Urra C.
+ */
+public enum RandomEngineType
+{
+    /**
+     * The 48-bit linear congruential engine of java.util.Random. It generates
+     * the same sequences than previous versions of the tool.
+     */
+    LCG48
+    {
+        @Override
+        public RandomEngine create(long seed)
+        {
+            return new Lcg48Engine(seed);
+        }
+    },
+    /**
+     * The SplitMix64 engine.
+     */
+    SPLITMIX64
+    {
+        @Override
+        public RandomEngine create(long seed)
+        {
+            return new SplitMix64Engine(seed);
+        }
+    },
+    /**
+     * The xoshiro256** engine.
+     */
+    XOSHIRO256SS
+    {
+        @Override
+        public RandomEngine create(long seed)
+        {
+            return new Xoshiro256Engine(seed);
+        }
+    },
+    /**
+     * The PCG64 (XSL-RR) engine.
+     */
+    PCG64
+    {
+        @Override
+        public RandomEngine create(long seed)
+        {
+            return new Pcg64Engine(seed);
+        }
+    },
+    /**
+     * The Philox4x32-10 counter-based engine.
+     */
+    PHILOX
+    {
+        @Override
+        public RandomEngine create(long seed)
+        {
+            return new PhiloxEngine(seed);
+        }
+    };
+
+    /**
+     * Creates a new engine of this type.
+     * @param seed The initial seed of the engine.
+     * @return The new engine.
+     */
+    public abstract RandomEngine create(long seed);
+}
@@ -1,28 +1,73 @@
 
 package optefx.util.random;
 
+import java.util.ArrayList;
 import java.util.Random;
 
 /**
- * Implements a beans which mantains a random object and its seed.
+ * Implements a beans which mantains a random engine and its seed. Temporary
+ * engines can be pushed over the seeded one (see RandomContext), in which case
+ * the item provides the last pushed engine until it is popped.
  * @author Enrique Urra C.
  */
 final class RandomItem
 {
+    private final RandomEngine engine;
+    private RandomEngine current;
+    private ArrayList<RandomEngine> pushed;
     private Random random;
     private long seed;
 
-    public RandomItem(long seed)
+    public RandomItem(RandomEngineType type, long seed)
     {
-        this.random = new Random(seed);
+        this(type.create(seed), seed);
+    }
+
+    public RandomItem(RandomEngine engine, long seed)
+    {
+        int blockSize = RandomTool.getBufferBlockSize();
+        RandomLog log = RandomTool.getLog();
+
+        if(blockSize > 0)
+            engine = new BufferedEngine(engine, blockSize, RandomTool.isBackgroundRefill());
+
+        this.engine = log != null ? log.wrap(engine) : engine;
+        this.current = this.engine;
         this.seed = seed;
     }
 
+    public RandomEngine getEngine()
+    {
+        return current;
+    }
+
     public Random getRandom()
     {
+        if(random == null)
+            random = new RandomAdapter(current, current == engine ? this : null);
+
         return random;
     }
 
+    public void push(RandomEngine engine)
+    {
+        if(pushed == null)
+            pushed = new ArrayList<>();
+
+        pushed.add(current);
+        current = engine;
+        random = null;
+    }
+
+    public void pop()
+    {
+        if(pushed == null || pushed.isEmpty())
+            throw new IllegalStateException("No pushed engine");
+
+        current = pushed.remove(pushed.size() - 1);
+        random = null;
+    }
+
     public long getSeed()
     {
         return seed;
@@ -31,6 +76,17 @@ final class RandomItem
     public void setSeed(long seed)
     {
         this.seed = seed;
-        this.random.setSeed(seed);
+        this.engine.setSeed(seed);
+    }
+
+    public long[] getState()
+    {
+        return engine.getState();
+    }
+
+    public void restore(long seed, long[] state)
+    {
+        this.seed = seed;
+        this.engine.setState(state);
     }
 }
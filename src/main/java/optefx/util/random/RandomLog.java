@@ -0,0 +1,732 @@
+
+package optefx.util.random;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * Implements a log of the random numbers drawn by each thread, which allows to
+ * record an execution and to replay it later with exactly the same numbers,
+ * regardless of the scheduling of the threads (see RandomTool.startRecording()
+ * and RandomTool.startReplay()).
+ *
+ * The log is a directory with a binary file for each thread, whose name is
+ * derived from the name of the thread. The n-th thread with the same name uses
+ * the suffix "#n", which cannot appear in the names, so the threads must be
+ * named deterministically for the replay to match them (e.g., "worker-3"). 
+ * Each file has a header of 16 bytes (magic number, engine type and value 
+ * count) followed by the 64-bit values, which are written through a 
+ * memory-mapped region that is remapped in chunks. The count is updated in 
+ * the header after each value. Therefore, recording a value only costs a few
+ * instructions, and the values are kept by the operating system even if the 
+ * process crashes.
+ *
+ * The recorded engine draws its values exactly as the unrecorded one, and each
+ * drawn value (long, int, double, gaussian, etc.) is logged as a 64-bit entry.
+ * Therefore, the values derived by the engines are replayed exactly, even if
+ * an engine does not derive them from its longs.
+ * @author Enrique Urra C.
+ */
+public final class RandomLog
+{
+    private static final int MAGIC = 0x4F524C47;
+    private static final int HEADER_SIZE = 16;
+    private static final long CHUNK_SIZE = 4L << 20;
+
+    private final Path directory;
+    private final boolean replay;
+    private final WeakHashMap<Thread, Object> threadLogs;
+    private final ArrayList<Object> openLogs;
+    private final HashMap<String, Integer> nameCounts;
+    private boolean closed;
+
+    private RandomLog(Path directory, boolean replay)
+    {
+        this.directory = directory;
+        this.replay = replay;
+        this.threadLogs = new WeakHashMap<>();
+        this.openLogs = new ArrayList<>();
+        this.nameCounts = new HashMap<>();
+    }
+
+    /**
+     * Creates a log that records the numbers into a directory, which is 
+     * created if it does not exist.
+     * @param directory The directory.
+     * @return The log.
+     */
+    public static RandomLog record(Path directory)
+    {
+        if(directory == null)
+            throw new NullPointerException("Null directory");
+
+        try
+        {
+            Files.createDirectories(directory);
+        }
+        catch(IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+
+        return new RandomLog(directory, false);
+    }
+
+    /**
+     * Creates a log that replays the numbers recorded in a directory.
+     * @param directory The directory.
+     * @return The log.
+     */
+    public static RandomLog replay(Path directory)
+    {
+        if(directory == null)
+            throw new NullPointerException("Null directory");
+
+        if(!Files.isDirectory(directory))
+            throw new IllegalArgumentException("The directory " + directory + " does not exist");
+
+        return new RandomLog(directory, true);
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    public boolean isReplay()
+    {
+        return replay;
+    }
+
+    /**
+     * Gets the log of the current thread, which is created the first time. The
+     * threads are referenced weakly, but their logs are kept until the log is
+     * closed.
+     * @param type The type of the recorded engine.
+     * @return The log of the thread.
+     */
+    private synchronized Object getThreadLog(RandomEngineType type)
+    {
+        if(closed)
+            throw new IllegalStateException("The random log has been closed");
+
+        Thread thread = Thread.currentThread();
+        Object res = threadLogs.get(thread);
+
+        if(res == null)
+        {
+            String name = thread.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+            int count = nameCounts.merge(name, 1, Integer::sum);
+            Path file = directory.resolve((count == 1 ? name : name + "#" + count) + ".rlog");
+
+            try
+            {
+                res = replay ? new Reader(file) : new Writer(file, type);
+            }
+            catch(IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            threadLogs.put(thread, res);
+            openLogs.add(res);
+        }
+
+        return res;
+    }
+
+    /**
+     * Wraps an engine, so its numbers are recorded or replaced by the recorded
+     * ones, depending on the type of this log.
+     * @param engine The engine.
+     * @return The wrapped engine.
+     */
+    RandomEngine wrap(RandomEngine engine)
+    {
+        return replay ? new ReplayEngine() : new RecordingEngine(engine);
+    }
+
+    /**
+     * Closes the files of every thread. In recording logs, the amount of 
+     * recorded values is written to each file. The threads must not draw 
+     * numbers while the log is closed.
+     */
+    public synchronized void close()
+    {
+        if(closed)
+            return;
+
+        closed = true;
+        IOException error = null;
+
+        for(Object threadLog : openLogs)
+        {
+            try
+            {
+                if(threadLog instanceof Writer)
+                    ((Writer)threadLog).close();
+                else
+                    ((Reader)threadLog).close();
+            }
+            catch(IOException ex)
+            {
+                error = ex;
+            }
+        }
+
+        threadLogs.clear();
+        openLogs.clear();
+
+        if(error != null)
+            throw new UncheckedIOException(error);
+    }
+
+    /**
+     * Implements the recording file of a thread.
+     */
+    private static final class Writer
+    {
+        private final FileChannel channel;
+        private MappedByteBuffer header;
+        private MappedByteBuffer map;
+        private long mapStart;
+        private long count;
+
+        public Writer(Path file, RandomEngineType type) throws IOException
+        {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, 
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_SIZE);
+            map.putInt(MAGIC);
+            map.putInt(type.ordinal());
+            map.putLong(0);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        }
+
+        public void put(long value)
+        {
+            if(!map.hasRemaining())
+            {
+                try
+                {
+                    mapStart += map.capacity();
+                    map = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, CHUNK_SIZE);
+                }
+                catch(IOException ex)
+                {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            map.putLong(value);
+            header.putLong(8, ++count);
+        }
+
+        /**
+         * Forces the values to the storage device. The unused part of the
+         * last mapped chunk is removed when the platform allows it, since the
+         * region cannot be explicitly unmapped. Otherwise, it is kept, which
+         * does not affect the reader because the header stores the count.
+         */
+        public void close() throws IOException
+        {
+            long size = mapStart + map.position();
+            map.force();
+            header.force();
+            map = null;
+            header = null;
+
+            try
+            {
+                channel.truncate(size);
+            }
+            catch(IOException ex)
+            {
+                // The region is still mapped (e.g., in Windows)
+            }
+            finally
+            {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Implements the replay file of a thread.
+     */
+    private static final class Reader
+    {
+        private final FileChannel channel;
+        private final RandomEngineType type;
+        private final long count;
+        private MappedByteBuffer map;
+        private long mapStart;
+        private long position;
+
+        public Reader(Path file) throws IOException
+        {
+            if(!Files.exists(file))
+                throw new IllegalStateException("No random log for the thread " + Thread.currentThread().getName() + " (" + file + ")");
+
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            while(header.hasRemaining() && channel.read(header, header.position()) > 0);
+
+            header.flip();
+
+            if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+                throw new IOException("Invalid random log: " + file);
+
+            int ordinal = header.getInt();
+            long headerCount = header.getLong();
+            long maxCount = (channel.size() - HEADER_SIZE) / 8;
+
+            if(ordinal < 0 || ordinal >= RandomEngineType.values().length)
+                throw new IOException("Invalid engine type " + ordinal + " in the random log: " + file);
+
+            if(headerCount < 0 || headerCount > maxCount)
+                throw new IOException("Invalid value count " + headerCount + " in the random log: " + file);
+
+            type = RandomEngineType.values()[ordinal];
+            count = headerCount;
+            seek(0);
+        }
+
+        public void seek(long position)
+        {
+            if(position < 0 || position > count)
+                throw new IllegalArgumentException("Invalid log position " + position + " (count " + count + ")");
+
+            long offset = HEADER_SIZE + position * 8;
+            mapStart = offset - offset % CHUNK_SIZE;
+            long end = HEADER_SIZE + count * 8;
+
+            try
+            {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, Math.min(CHUNK_SIZE, end - mapStart));
+            }
+            catch(IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            map.position((int)(offset - mapStart));
+            this.position = position;
+        }
+
+        public long next()
+        {
+            if(position == count)
+                throw new IllegalStateException("The random log of the thread " + Thread.currentThread().getName() + " is exhausted");
+
+            if(!map.hasRemaining())
+                seek(position);
+
+            position++;
+            return map.getLong();
+        }
+
+        public void close() throws IOException
+        {
+            map = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Implements an engine that records the numbers of a source engine into
+     * the log of the thread that draws them.
+     */
+    private final class RecordingEngine extends RandomEngine
+    {
+        private final RandomEngine source;
+        private Thread owner;
+        private Writer writer;
+
+        public RecordingEngine(RandomEngine source)
+        {
+            this.source = source;
+        }
+
+        @Override
+        public RandomEngineType getType()
+        {
+            return source.getType();
+        }
+
+        @Override
+        public void setSeed(long seed)
+        {
+            source.setSeed(seed);
+        }
+
+        @Override
+        public long[] getState()
+        {
+            return source.getState();
+        }
+
+        @Override
+        public void setState(long[] state)
+        {
+            source.setState(state);
+        }
+
+        @Override
+        public RandomEngine copy()
+        {
+            return new RecordingEngine(source.copy());
+        }
+
+        @Override
+        public void jumpPow2(int k)
+        {
+            source.jumpPow2(k);
+        }
+
+        @Override
+        public void advance(long steps)
+        {
+            source.advance(steps);
+        }
+
+        @Override
+        protected int getSubstreamExponent()
+        {
+            return source.getSubstreamExponent();
+        }
+
+        @Override
+        protected int getPeriodExponent()
+        {
+            return source.getPeriodExponent();
+        }
+
+        private Writer getWriter()
+        {
+            Thread current = Thread.currentThread();
+
+            if(current != owner)
+            {
+                writer = (Writer)getThreadLog(source.getType());
+                owner = current;
+            }
+
+            return writer;
+        }
+
+        @Override
+        public long nextLong()
+        {
+            long res = source.nextLong();
+            getWriter().put(res);
+            return res;
+        }
+
+        @Override
+        public int nextInt()
+        {
+            int res = source.nextInt();
+            getWriter().put(res);
+            return res;
+        }
+
+        @Override
+        public int nextInt(int bound)
+        {
+            int res = source.nextInt(bound);
+            getWriter().put(res);
+            return res;
+        }
+
+        @Override
+        public double nextDouble()
+        {
+            double res = source.nextDouble();
+            getWriter().put(Double.doubleToRawLongBits(res));
+            return res;
+        }
+
+        @Override
+        public float nextFloat()
+        {
+            float res = source.nextFloat();
+            getWriter().put(Float.floatToRawIntBits(res));
+            return res;
+        }
+
+        @Override
+        public boolean nextBoolean()
+        {
+            boolean res = source.nextBoolean();
+            getWriter().put(res ? 1 : 0);
+            return res;
+        }
+
+        @Override
+        public double nextGaussian()
+        {
+            double res = source.nextGaussian();
+            getWriter().put(Double.doubleToRawLongBits(res));
+            return res;
+        }
+
+        @Override
+        public void fillDoubles(double[] out, int offset, int length, double from, double to)
+        {
+            source.fillDoubles(out, offset, length, from, to);
+            Writer w = getWriter();
+
+            for(int i = offset; i < offset + length; i++)
+                w.put(Double.doubleToRawLongBits(out[i]));
+        }
+
+        @Override
+        public void fillDoubles(DoubleBuffer out, double from, double to)
+        {
+            int start = out.position();
+            source.fillDoubles(out, from, to);
+            Writer w = getWriter();
+
+            for(int i = start; i < out.position(); i++)
+                w.put(Double.doubleToRawLongBits(out.get(i)));
+        }
+
+        @Override
+        public void fillInts(int[] out, int offset, int length, int bound)
+        {
+            source.fillInts(out, offset, length, bound);
+            Writer w = getWriter();
+
+            for(int i = offset; i < offset + length; i++)
+                w.put(out[i]);
+        }
+
+        @Override
+        public void fillInts(IntBuffer out, int bound)
+        {
+            int start = out.position();
+            source.fillInts(out, bound);
+            Writer w = getWriter();
+
+            for(int i = start; i < out.position(); i++)
+                w.put(out.get(i));
+        }
+
+        @Override
+        public void fillLongs(long[] out, int offset, int length)
+        {
+            source.fillLongs(out, offset, length);
+            Writer w = getWriter();
+
+            for(int i = offset; i < offset + length; i++)
+                w.put(out[i]);
+        }
+
+        @Override
+        public void fillBooleans(long[] bits, int count)
+        {
+            source.fillBooleans(bits, count);
+            Writer w = getWriter();
+            int words = (count + 63) >>> 6;
+
+            for(int i = 0; i < words; i++)
+                w.put(bits[i]);
+        }
+    }
+
+    /**
+     * Implements an engine that provides the numbers recorded in the log of 
+     * the thread that draws them. The state of the engine is the position in
+     * such log, and the seed is ignored.
+     */
+    private final class ReplayEngine extends RandomEngine
+    {
+        private Thread owner;
+        private Reader reader;
+
+        private Reader getReader()
+        {
+            Thread current = Thread.currentThread();
+
+            if(current != owner)
+            {
+                reader = (Reader)getThreadLog(null);
+                owner = current;
+            }
+
+            return reader;
+        }
+
+        @Override
+        public RandomEngineType getType()
+        {
+            return getReader().type;
+        }
+
+        @Override
+        public void setSeed(long seed)
+        {
+        }
+
+        @Override
+        public long[] getState()
+        {
+            return new long[] { getReader().position };
+        }
+
+        @Override
+        public void setState(long[] state)
+        {
+            checkState(state, 1);
+            getReader().seek(state[0]);
+        }
+
+        @Override
+        public RandomEngine copy()
+        {
+            return new ReplayEngine();
+        }
+
+        @Override
+        public void jumpPow2(int k)
+        {
+            advance(1L << k);
+        }
+
+        @Override
+        public void advance(long steps)
+        {
+            Reader r = getReader();
+            r.seek(r.position + steps);
+        }
+
+        @Override
+        protected int getSubstreamExponent()
+        {
+            return 32;
+        }
+
+        @Override
+        protected int getPeriodExponent()
+        {
+            return 64;
+        }
+
+        @Override
+        public long nextLong()
+        {
+            return getReader().next();
+        }
+
+        @Override
+        public int nextInt()
+        {
+            return (int)getReader().next();
+        }
+
+        @Override
+        public int nextInt(int bound)
+        {
+            if(bound <= 0)
+                throw new IllegalArgumentException("The bound must be positive");
+
+            return (int)getReader().next();
+        }
+
+        @Override
+        public double nextDouble()
+        {
+            return Double.longBitsToDouble(getReader().next());
+        }
+
+        @Override
+        public float nextFloat()
+        {
+            return Float.intBitsToFloat((int)getReader().next());
+        }
+
+        @Override
+        public boolean nextBoolean()
+        {
+            return getReader().next() != 0;
+        }
+
+        @Override
+        public double nextGaussian()
+        {
+            return Double.longBitsToDouble(getReader().next());
+        }
+
+        @Override
+        public void fillDoubles(double[] out, int offset, int length, double from, double to)
+        {
+            checkRange(out.length, offset, length);
+            Reader r = getReader();
+
+            for(int i = offset; i < offset + length; i++)
+                out[i] = Double.longBitsToDouble(r.next());
+        }
+
+        @Override
+        public void fillDoubles(DoubleBuffer out, double from, double to)
+        {
+            Reader r = getReader();
+
+            while(out.hasRemaining())
+                out.put(Double.longBitsToDouble(r.next()));
+        }
+
+        @Override
+        public void fillInts(int[] out, int offset, int length, int bound)
+        {
+            checkRange(out.length, offset, length);
+            Reader r = getReader();
+
+            for(int i = offset; i < offset + length; i++)
+                out[i] = (int)r.next();
+        }
+
+        @Override
+        public void fillInts(IntBuffer out, int bound)
+        {
+            Reader r = getReader();
+
+            while(out.hasRemaining())
+                out.put((int)r.next());
+        }
+
+        @Override
+        public void fillLongs(long[] out, int offset, int length)
+        {
+            checkRange(out.length, offset, length);
+            Reader r = getReader();
+
+            for(int i = offset; i < offset + length; i++)
+                out[i] = r.next();
+        }
+
+        @Override
+        public void fillBooleans(long[] bits, int count)
+        {
+            int words = (count + 63) >>> 6;
+            checkRange(bits.length, 0, words);
+            Reader r = getReader();
+
+            for(int i = 0; i < words; i++)
+                bits[i] = r.next();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+
+package optefx.util.random;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Defines a scoped random context, which provides the stream of the random
+ * tool to a task and its subtasks without keeping any table indexed by 
+ * threads in the tool. Scopes are only used in the scoped mode of the tool 
+ * (see RandomTool.MODE_SCOPED), in which the static methods of the tool use
+ * the stream of the bound scope, if any.
+ *
+ * In Java 25 and later, the scope is bound through a ScopedValue object, so it
+ * is visible to the subtasks forked in a StructuredTaskScope. In previous 
+ * versions, it is bound through a ThreadLocal object, so the tasks submitted
+ * to other threads must be wrapped through the wrap() methods.
+ *
+ * The stream of a scope is kept by the scope object itself, so no state is
+ * kept per thread, and it is used by a single thread at the same time. Thus,
+ * binding a scope that is bound in another thread, or drawing numbers from a
+ * scope inherited by a subtask that runs in another thread, throws an 
+ * IllegalStateException. Concurrent subtasks must run in child scopes created
+ * through the fork() method, whose streams only depend on the fork index, so
+ * they are reproducible regardless of the scheduling.
+ * @author Enrique Urra C.
+ */
+public final class RandomScope
+{
+    private final RandomEngine origin;
+    private final RandomItem item;
+    private final AtomicReference<Thread> owner;
+    private int depth;
+
+    private RandomScope(RandomEngine origin, long seed)
+    {
+        this.origin = origin;
+        this.item = new RandomItem(origin.copy(), seed);
+        this.owner = new AtomicReference<>();
+    }
+
+    /**
+     * Creates a scope whose stream starts at the current position of an 
+     * engine, without consuming it.
+     * @param engine The engine.
+     * @return The scope.
+     */
+    public static RandomScope of(RandomEngine engine)
+    {
+        if(engine == null)
+            throw new NullPointerException("Null engine");
+
+        return new RandomScope(engine.copy(), 0);
+    }
+
+    /**
+     * Creates a scope with a seeded stream of the current engine type of the
+     * random tool.
+     * @param seed The seed.
+     * @return The scope.
+     */
+    public static RandomScope ofSeed(long seed)
+    {
+        return new RandomScope(RandomTool.getEngineType().create(seed), seed);
+    }
+
+    /**
+     * Gets the scope bound to the executing code.
+     * @return The scope, or null if no scope is bound.
+     */
+    public static RandomScope current()
+    {
+        return ScopeCarrier.get();
+    }
+
+    /**
+     * Creates a child scope, whose stream is seeded from this scope and the 
+     * provided index (see SeedSequence). Thus, the stream of a child only 
+     * depends on its index, and it is independent of the streams of this 
+     * scope and of the other children.
+     * @param index The index of the child.
+     * @return The child scope.
+     */
+    public RandomScope fork(long index)
+    {
+        long childSeed = new SeedSequence(origin.copy().nextLong()).deriveSeed(index);
+        return new RandomScope(origin.getType().create(childSeed), childSeed);
+    }
+
+    /**
+     * Gets the item of this scope, which can only be accessed by the thread in
+     * which the scope is bound, if any.
+     * @return The random item.
+     */
+    RandomItem getItem()
+    {
+        Thread thread = owner.get();
+
+        if(thread != null && thread != Thread.currentThread())
+            throw new IllegalStateException("The random scope is bound in another thread, concurrent subtasks must use forked scopes");
+
+        return item;
+    }
+
+    /**
+     * Gets the engine of this scope.
+     * @return The engine.
+     */
+    public RandomEngine getEngine()
+    {
+        return getItem().getEngine();
+    }
+
+    /**
+     * Checks that the random tool is in the scoped mode.
+     */
+    private static void checkMode()
+    {
+        if(!(RandomTool.getInstance() instanceof ScopedRandomTool))
+            throw new IllegalStateException("Random scopes require the scoped mode of the random tool");
+    }
+
+    /**
+     * Binds this scope to the current thread while a task is executed. The
+     * scope can be bound again by the same thread (e.g., in nested calls).
+     * @param task The task.
+     * @return The result of the task.
+     */
+    private <T> T bind(Supplier<T> task)
+    {
+        checkMode();
+        Thread thread = Thread.currentThread();
+
+        if(owner.get() != thread && !owner.compareAndSet(null, thread))
+            throw new IllegalStateException("The random scope is already bound in another thread, concurrent tasks must use forked scopes");
+
+        depth++;
+
+        try
+        {
+            return ScopeCarrier.call(this, task);
+        }
+        finally
+        {
+            if(--depth == 0)
+                owner.set(null);
+        }
+    }
+
+    /**
+     * Executes a task with this scope bound.
+     * @param task The task.
+     */
+    public void run(Runnable task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        bind(() -> 
+        {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executes a task with this scope bound, and returns its result.
+     * @param task The task.
+     * @return The result of the task.
+     */
+    public <T> T call(Supplier<T> task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        return bind(task);
+    }
+
+    /**
+     * Wraps a task, so it binds this scope when it is executed, e.g., in the
+     * thread of an executor.
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public Runnable wrap(Runnable task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        return () -> run(task);
+    }
+
+    /**
+     * Wraps a task, so it binds this scope when it is executed, e.g., in the
+     * thread of an executor.
+     * @param task The task.
+     * @return The wrapped task.
+     */
+    public <T> Callable<T> wrap(Callable<T> task)
+    {
+        if(task == null)
+            throw new NullPointerException("Null task");
+
+        return () -> 
+        {
+            Exception[] error = new Exception[1];
+            T result = bind(() -> 
+            {
+                try
+                {
+                    return task.call();
+                }
+                catch(Exception ex)
+                {
+                    error[0] = ex;
+                    return null;
+                }
+            });
+
+            if(error[0] != null)
+                throw error[0];
+
+            return result;
+        };
+    }
+}
@@ -0,0 +1,232 @@
+
+package optefx.util.random;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Represents a snapshot of the complete state of the random tool: its mode, 
+ * the engine type, the master seed and the state of every stream (one per 
+ * thread in the multi-thread modes). A snapshot can be used to resume an 
+ * execution from the point in which it was captured, instead of restarting it
+ * from the seed.
+ *
+ * The state can be encoded in a compact binary format, through the toBytes()
+ * and writeTo() methods, and decoded through the fromBytes() and readFrom()
+ * methods.
+ * @author Enrique Urra C.
+ */
+public final class RandomState
+{
+    private static final int MAGIC = 0x4F525354;
+    private static final int VERSION = 2;
+
+    private final int mode;
+    private final RandomEngineType engineType;
+    private final long masterSeed;
+    private final long[] seeds;
+    private final long[][] states;
+    private final long nextStream;
+
+    RandomState(int mode, RandomEngineType engineType, long masterSeed, long[] seeds, long[][] states)
+    {
+        this(mode, engineType, masterSeed, seeds, states, seeds.length);
+    }
+
+    RandomState(int mode, RandomEngineType engineType, long masterSeed, long[] seeds, long[][] states, long nextStream)
+    {
+        this.mode = mode;
+        this.engineType = engineType;
+        this.masterSeed = masterSeed;
+        this.seeds = seeds;
+        this.states = states;
+        this.nextStream = nextStream;
+    }
+
+    /**
+     * Gets the mode of the random tool when the snapshot was captured.
+     * @return The mode identifier.
+     */
+    public int getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * Gets the type of the engines in the snapshot.
+     * @return The engine type.
+     */
+    public RandomEngineType getEngineType()
+    {
+        return engineType;
+    }
+
+    /**
+     * Gets the master seed of the random tool when the snapshot was captured.
+     * @return The master seed.
+     */
+    public long getMasterSeed()
+    {
+        return masterSeed;
+    }
+
+    /**
+     * Gets the amount of streams in the snapshot.
+     * @return The amount of streams.
+     */
+    public int getStreamCount()
+    {
+        return seeds.length;
+    }
+
+    long getSeed(int stream)
+    {
+        return seeds[stream];
+    }
+
+    long[] getState(int stream)
+    {
+        return states[stream].clone();
+    }
+
+    /**
+     * Gets the index of the first substream of the master sequence that was
+     * not assigned when the snapshot was captured. The snapshot may contain 
+     * less streams than this index, if the streams of finished threads were
+     * discarded.
+     * @return The index.
+     */
+    long getNextStream()
+    {
+        return nextStream;
+    }
+
+    /**
+     * Writes the binary encoding of the snapshot into an output stream.
+     * @param output The output stream.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeTo(OutputStream output) throws IOException
+    {
+        DataOutputStream dos = new DataOutputStream(output);
+        dos.writeInt(MAGIC);
+        dos.writeByte(VERSION);
+        dos.writeByte(mode);
+        dos.writeUTF(engineType.name());
+        dos.writeLong(masterSeed);
+        dos.writeInt(seeds.length);
+
+        for(int i = 0; i < seeds.length; i++)
+        {
+            dos.writeLong(seeds[i]);
+            dos.writeByte(states[i].length);
+
+            for(int j = 0; j < states[i].length; j++)
+                dos.writeLong(states[i][j]);
+        }
+
+        dos.writeLong(nextStream);
+        dos.flush();
+    }
+
+    /**
+     * Gets the binary encoding of the snapshot.
+     * @return The encoded snapshot.
+     */
+    public byte[] toBytes()
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try
+        {
+            writeTo(output);
+        }
+        catch(IOException ex)
+        {
+            throw new RuntimeException("Error while encoding the random state", ex);
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Reads a snapshot from an input stream, which must contain the binary 
+     * encoding generated by the writeTo() or toBytes() methods.
+     * @param input The input stream.
+     * @return The decoded snapshot.
+     * @throws IOException If an I/O error occurs, or if the data is not a valid
+     * encoded snapshot.
+     */
+    public static RandomState readFrom(InputStream input) throws IOException
+    {
+        DataInputStream dis = new DataInputStream(input);
+
+        if(dis.readInt() != MAGIC)
+            throw new IOException("The data does not correspond to an encoded random state");
+
+        int version = dis.readUnsignedByte();
+
+        if(version < 1 || version > VERSION)
+            throw new IOException("Unsupported random state version: " + version);
+
+        int mode = dis.readUnsignedByte();
+        RandomEngineType engineType;
+
+        try
+        {
+            engineType = RandomEngineType.valueOf(dis.readUTF());
+        }
+        catch(IllegalArgumentException ex)
+        {
+            throw new IOException("Unknown engine type in the random state", ex);
+        }
+
+        long masterSeed = dis.readLong();
+        int count = dis.readInt();
+
+        if(count < 0)
+            throw new IOException("Invalid amount of streams in the random state: " + count);
+
+        long[] seeds = new long[count];
+        long[][] states = new long[count][];
+
+        for(int i = 0; i < count; i++)
+        {
+            seeds[i] = dis.readLong();
+            states[i] = new long[dis.readUnsignedByte()];
+
+            for(int j = 0; j < states[i].length; j++)
+                states[i][j] = dis.readLong();
+        }
+
+        // Version 1 snapshots kept the streams of all the threads
+        long nextStream = version >= 2 ? dis.readLong() : count;
+
+        if(nextStream < count)
+            throw new IOException("Invalid next stream in the random state: " + nextStream);
+
+        return new RandomState(mode, engineType, masterSeed, seeds, states, nextStream);
+    }
+
+    /**
+     * Decodes a snapshot from its binary encoding.
+     * @param data The encoded snapshot.
+     * @return The decoded snapshot.
+     */
+    public static RandomState fromBytes(byte[] data)
+    {
+        try
+        {
+            return readFrom(new ByteArrayInputStream(data));
+        }
+        catch(IOException ex)
+        {
+            throw new IllegalArgumentException("Invalid encoded random state", ex);
+        }
+    }
+}
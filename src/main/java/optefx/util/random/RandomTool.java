@@ -1,14 +1,18 @@
 package optefx.util.random;
 
-import java.lang.reflect.Array;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a environment tool for pseudo-random number generation. The main
- * method of this class (getRandom()) provides a centralized Random object 
+ * method of this class (getEngine()) provides a centralized RandomEngine object 
  * reference. Several static methods are provided as shortcuts to access the 
- * common operations in the Random class. For experiment replicability, there is
- * also helper methods to configure the random seed.
+ * common operations of the engine. For experiment replicability, there is
+ * also helper methods to configure the random seed. For compatibility, the
+ * getRandom() method provides a java.util.Random view of the current engine.
  * 
  * This class is based in the singleton pattern, through which two different 
  * implementations can be used:
@@ -20,8 +24,45 @@ import java.util.Random;
  *   Random instance to the current executing thread. Because the thread 
  *   management, this implementation is only recommended for develop or required
  *   multi-thread environments.
+ * - A thread-local implementation, which gives each thread its own Random
+ *   instance without any shared mutable table. The seed of each thread is
+ *   derived deterministically from a master seed, so the replicability is kept
+ *   as long as the threads access the tool in the same order. This is the 
+ *   recommended implementation for intensive multi-thread usage.
+ * - A scoped implementation, which provides the stream of the random scope 
+ *   bound to the executing task, if any, and behaves as the thread-local 
+ *   implementation otherwise (see RandomScope). This is the recommended 
+ *   implementation for large amounts of short-lived (e.g., virtual) threads.
  * 
- * Both implementations can be switched through the setMode() method.
+ * The implementations can be switched through the setMode() method.
+ * 
+ * The complete state of the tool can be captured through the snapshot() 
+ * method, and restored later through the restore() method, which allows to 
+ * resume long executions from checkpoints.
+ * 
+ * A single seeded sequence can also be partitioned between several workers
+ * without overlapping, through the partition() and leapfrog() methods.
+ * 
+ * For batches of replicates executed in parallel, independent and reproducible
+ * streams can be obtained through the forReplicate() method (see also the 
+ * SeedSequence class).
+ * 
+ * For paired comparisons of stochastic evaluations, tasks can be executed in 
+ * replayable contexts that provide common random numbers or antithetic 
+ * streams (see RandomContext).
+ * 
+ * The engine used to generate the numbers can be switched through the 
+ * setEngineType() method. By default, the LCG48 engine is used, which generates
+ * the same sequences than java.util.Random. Faster engines with better 
+ * statistical quality are available (see RandomEngineType).
+ * 
+ * For latency-sensitive usages, the engines of every mode can pre-generate
+ * their numbers in blocks, which are refilled by the consumer thread or by a
+ * background producer (see setBuffering() and BufferedEngine). 
+ * 
+ * For debugging, the numbers drawn by each thread can be recorded into a log
+ * and replayed later, regardless of the scheduling of the threads (see 
+ * startRecording(), startReplay() and RandomLog).
  * 
  * @author Enrique Urra C.
  */
@@ -35,6 +76,14 @@ public abstract class RandomTool
      * Multiple thread flag random generation.
      */
     public static final int MODE_MULTI_THREAD = 1;
+    /**
+     * Thread-local flag for random generation.
+     */
+    public static final int MODE_THREAD_LOCAL = 2;
+    /**
+     * Scoped flag for random generation.
+     */
+    public static final int MODE_SCOPED = 3;
     
     /**
      * The internal (unique) instance.
@@ -44,6 +93,27 @@ public abstract class RandomTool
      * The current threading mode
      */
     private static int currentMode = -1;
+    /**
+     * The current engine type.
+     */
+    private static RandomEngineType engineType = RandomEngineType.LCG48;
+    /**
+     * The block size of the buffered engines, or zero if buffering is disabled.
+     */
+    private static int bufferBlockSize = 0;
+    /**
+     * Indicates if the blocks of the buffered engines are refilled by a 
+     * background producer.
+     */
+    private static boolean backgroundRefill = false;
+    /**
+     * The current log of random numbers, or null if no log is used.
+     */
+    private static RandomLog randomLog;
+    /**
+     * A counter that makes unique the seeds created in the same instant.
+     */
+    private static final AtomicLong seedUniquifier = new AtomicLong(System.nanoTime());
     
     /**
      * Gets the unique instance of the tool.
@@ -66,25 +136,324 @@ public abstract class RandomTool
         if(mode == currentMode)
             return;
         
+        instance = createInstance(mode);
+        currentMode = mode;
+    }
+    
+    /**
+     * Creates a tool instance for the provided mode and the current engine 
+     * type.
+     * @param mode The mode identifier.
+     * @return The new instance.
+     */
+    private static RandomTool createInstance(int mode)
+    {
         switch(mode)
         {
             case MODE_SINGLE_THREAD : 
             {
-                instance = new SingleThreadRandomTool();
-                break;
+                return new SingleThreadRandomTool(engineType);
             } 
             case MODE_MULTI_THREAD :
             {
-                instance = new MultiThreadRandomTool();
-                break;
+                return new MultiThreadRandomTool(engineType);
+            }
+            case MODE_THREAD_LOCAL :
+            {
+                return new ThreadLocalRandomTool(engineType);
+            }
+            case MODE_SCOPED :
+            {
+                return new ScopedRandomTool(engineType);
             }
             default : 
             {
                 throw new IllegalArgumentException("The provided mode is not valid.");
             }
         }
+    }
+    
+    /**
+     * Configures the type of the engines used by the random tool. If the tool
+     * has already been used, a new instance is created with the same seed of 
+     * the previous one.
+     * @param type The engine type.
+     */
+    public static void setEngineType(RandomEngineType type)
+    {
+        if(type == null)
+            throw new NullPointerException("Null engine type");
         
-        currentMode = mode;
+        if(type == engineType)
+            return;
+        
+        engineType = type;
+        
+        if(instance != null)
+        {
+            long seed = instance.getSeed();
+            instance = createInstance(currentMode);
+            instance.setSeed(seed);
+        }
+    }
+    
+    /**
+     * Gets the type of the engines used by the random tool.
+     * @return The engine type.
+     */
+    public static RandomEngineType getEngineType()
+    {
+        return engineType;
+    }
+    
+    /**
+     * Configures the pre-generation of random numbers. When enabled, each 
+     * stream of the tool reads the 64-bit values of its sequence from blocks
+     * that are generated in advance (see BufferedEngine). If the tool has 
+     * already been used, a new instance is created with the same seed of the
+     * previous one.
+     * @param blockSize The amount of values of each block, or zero to disable
+     * the buffering.
+     * @param background true if the blocks must be refilled by a background
+     * producer, false if they must be refilled by the consumer thread.
+     */
+    public static void setBuffering(int blockSize, boolean background)
+    {
+        if(blockSize < 0)
+            throw new IllegalArgumentException("The block size cannot be negative");
+        
+        if(blockSize == bufferBlockSize && background == backgroundRefill)
+            return;
+        
+        bufferBlockSize = blockSize;
+        backgroundRefill = background;
+        
+        if(instance != null)
+        {
+            long seed = instance.getSeed();
+            instance = createInstance(currentMode);
+            instance.setSeed(seed);
+        }
+    }
+    
+    /**
+     * Gets the block size of the buffered engines.
+     * @return The block size, or zero if the buffering is disabled.
+     */
+    public static int getBufferBlockSize()
+    {
+        return bufferBlockSize;
+    }
+    
+    /**
+     * Checks if the blocks of the buffered engines are refilled by a
+     * background producer.
+     * @return true if a background producer is used, false otherwise.
+     */
+    public static boolean isBackgroundRefill()
+    {
+        return backgroundRefill;
+    }
+    
+    /**
+     * Starts recording the numbers drawn by each thread into a log directory.
+     * A new instance of the tool is created with the same seed of the previous
+     * one, if any.
+     * @param directory The directory of the log.
+     */
+    public static void startRecording(Path directory)
+    {
+        setLog(RandomLog.record(directory));
+    }
+    
+    /**
+     * Starts replaying the numbers recorded in a log directory. A new instance
+     * of the tool is created, whose threads draw the numbers of the log.
+     * @param directory The directory of the log.
+     */
+    public static void startReplay(Path directory)
+    {
+        setLog(RandomLog.replay(directory));
+    }
+    
+    /**
+     * Stops the current recording or replay, if any, and closes its log. A new
+     * instance of the tool is created with the same seed of the previous one.
+     */
+    public static void stopLog()
+    {
+        setLog(null);
+    }
+    
+    /**
+     * Gets the current log of random numbers.
+     * @return The log, or null if no recording or replay is active.
+     */
+    public static RandomLog getLog()
+    {
+        return randomLog;
+    }
+    
+    /**
+     * Replaces the current log of random numbers.
+     * @param log The new log, or null.
+     */
+    private static void setLog(RandomLog log)
+    {
+        RandomLog previous = randomLog;
+        Long seed = instance != null ? instance.getSeed() : null;
+        randomLog = log;
+        
+        if(previous != null)
+            previous.close();
+        
+        if(seed != null)
+        {
+            instance = createInstance(currentMode);
+            instance.setSeed(seed);
+        }
+    }
+    
+    /**
+     * Creates a seed that is different for each call, even for calls performed
+     * in the same instant by different threads.
+     * @return The created seed.
+     */
+    static long createUniqueSeed()
+    {
+        long unique = seedUniquifier.addAndGet(SplitMix64Engine.GOLDEN_GAMMA);
+        return RandomEngine.mix64(unique ^ System.nanoTime()) ^ RandomEngine.mix64(System.currentTimeMillis());
+    }
+    
+    /**
+     * Derives the seed of a replicate of an experiment. The seeds of different
+     * replicates of the same experiment are always different.
+     * @param experimentSeed The seed of the experiment.
+     * @param replicateId The identifier of the replicate.
+     * @return The seed of the replicate.
+     */
+    public static long getReplicateSeed(long experimentSeed, int replicateId)
+    {
+        return new SeedSequence(experimentSeed).deriveSeed(replicateId);
+    }
+    
+    /**
+     * Creates an independent engine for a replicate of an experiment, by using
+     * the current engine type. The same experiment seed and replicate id always
+     * produce the same stream, without any coordination between replicates.
+     * To use the replicate stream through the static methods of this class, 
+     * the seed obtained through getReplicateSeed() can be set instead.
+     * @param experimentSeed The seed of the experiment.
+     * @param replicateId The identifier of the replicate.
+     * @return The engine of the replicate.
+     */
+    public static RandomEngine forReplicate(long experimentSeed, int replicateId)
+    {
+        return engineType.create(getReplicateSeed(experimentSeed, replicateId));
+    }
+    
+    /**
+     * Partitions the sequence of the current seed into non-overlapping
+     * substreams, one for each worker, by using jumps (see 
+     * RandomEngine.createSubstream()). The substream of a worker does not 
+     * depend on the amount of workers, so the same seed produces the same 
+     * streams with any level of parallelism.
+     * @param workers The amount of workers.
+     * @return The engines of the workers.
+     */
+    public static RandomEngine[] partition(int workers)
+    {
+        if(workers <= 0)
+            throw new IllegalArgumentException("The amount of workers must be positive");
+        
+        RandomEngine master = engineType.create(getInstance().getSeed());
+        RandomEngine[] res = new RandomEngine[workers];
+        
+        for(int i = 0; i < workers; i++)
+            res[i] = master.createSubstream(i);
+        
+        return res;
+    }
+    
+    /**
+     * Partitions the sequence of the current seed between several workers
+     * through leapfrogging (see LeapfrogEngine). Together, the workers consume
+     * the same numbers of the sequence of the current seed.
+     * 
+     * Each long drawn by a worker advances the base engine by workers - 1 
+     * positions. Such advance is cheap for the SplitMix64 and Philox engines,
+     * and logarithmic for the LCG48 and PCG64 engines, but the xoshiro256**
+     * engine generates and discards the values with up to 256 workers, and 
+     * performs jumps of powers of two with more. Therefore, the partition()
+     * method should be preferred when the workers do not need to consume the
+     * exact sequence of the current seed.
+     * @param workers The amount of workers.
+     * @return The engines of the workers.
+     */
+    public static RandomEngine[] leapfrog(int workers)
+    {
+        if(workers <= 0)
+            throw new IllegalArgumentException("The amount of workers must be positive");
+        
+        RandomEngine master = engineType.create(getInstance().getSeed());
+        RandomEngine[] res = new RandomEngine[workers];
+        
+        for(int i = 0; i < workers; i++)
+            res[i] = new LeapfrogEngine(master, i, workers);
+        
+        return res;
+    }
+    
+    /**
+     * Creates an Owen-scrambled Sobol sequence, whose scrambling is derived 
+     * from the current seed. Therefore, the same seed produces the same points.
+     * @param dimensions The amount of dimensions.
+     * @return The sequence.
+     */
+    public static LowDiscrepancySequence createSobol(int dimensions)
+    {
+        return new SobolSequence(dimensions, getInstance().getSeed());
+    }
+    
+    /**
+     * Creates a scrambled Halton sequence, whose scrambling is derived from the
+     * current seed. Therefore, the same seed produces the same points.
+     * @param dimensions The amount of dimensions.
+     * @return The sequence.
+     */
+    public static LowDiscrepancySequence createHalton(int dimensions)
+    {
+        return new HaltonSequence(dimensions, getInstance().getSeed());
+    }
+    
+    /**
+     * Captures the complete state of the random tool, including the state of
+     * the streams of every thread in the multi-thread modes. In such modes, the
+     * snapshot should be captured while the other threads are not generating
+     * random numbers, e.g., between the generations of an algorithm.
+     * @return The snapshot.
+     */
+    public static RandomState snapshot()
+    {
+        return getInstance().captureState();
+    }
+    
+    /**
+     * Restores a snapshot previously captured through the snapshot() method. 
+     * The mode and the engine type of the tool are set to the ones of the 
+     * snapshot. In the multi-thread modes, the current thread takes the first
+     * stream of the snapshot, and the remaining streams are assigned to other
+     * threads in the order they access the tool.
+     * @param state The snapshot to restore.
+     */
+    public static void restore(RandomState state)
+    {
+        if(state == null)
+            throw new NullPointerException("Null state");
+        
+        setEngineType(state.getEngineType());
+        setMode(state.getMode());
+        getInstance().restoreState(state);
     }
     
     /**
@@ -95,8 +464,7 @@ public abstract class RandomTool
      */
     public static int getInt(int max)
     {
-        Random random = getInstance().getRandom();
-        return random.nextInt(max);
+        return getInstance().getEngine().nextInt(max);
     }
     
     /**
@@ -105,8 +473,18 @@ public abstract class RandomTool
      */
     public static double getDouble()
     {
-        Random random = getInstance().getRandom();
-        return random.nextDouble();
+        return getInstance().getEngine().nextDouble();
+    }
+    
+    /**
+     * Gets a normally distributed value with zero mean and unit standard
+     * deviation from the current random object. For other distributions and 
+     * bulk generation, see the ContinuousSampler implementations.
+     * @return The random gaussian obtained.
+     */
+    public static double getGaussian()
+    {
+        return getInstance().getEngine().nextGaussian();
     }
     
     /**
@@ -115,13 +493,81 @@ public abstract class RandomTool
      */
     public static boolean getBoolean()
     {
-        Random random = getInstance().getRandom();
-        return random.nextBoolean();
+        return getInstance().getEngine().nextBoolean();
+    }
+    
+    /**
+     * Fills an array with random double numbers between the provided limits, 
+     * by using the current random engine. 
+     * @param out The array to fill.
+     * @param from The lower limit (inclusive).
+     * @param to The upper limit (exclusive).
+     */
+    public static void fillDoubles(double[] out, double from, double to)
+    {
+        getInstance().getEngine().fillDoubles(out, 0, out.length, from, to);
+    }
+    
+    /**
+     * Fills the remaining elements of a buffer with random double numbers 
+     * between the provided limits, by using the current random engine.
+     * @param out The buffer to fill.
+     * @param from The lower limit (inclusive).
+     * @param to The upper limit (exclusive).
+     */
+    public static void fillDoubles(DoubleBuffer out, double from, double to)
+    {
+        getInstance().getEngine().fillDoubles(out, from, to);
+    }
+    
+    /**
+     * Fills an array with random integers between zero and the provided bound
+     * (exclusive), by using the current random engine.
+     * @param out The array to fill.
+     * @param bound The bound (exclusive).
+     */
+    public static void fillInts(int[] out, int bound)
+    {
+        getInstance().getEngine().fillInts(out, 0, out.length, bound);
+    }
+    
+    /**
+     * Fills the remaining elements of a buffer with random integers between 
+     * zero and the provided bound (exclusive), by using the current random 
+     * engine.
+     * @param out The buffer to fill.
+     * @param bound The bound (exclusive).
+     */
+    public static void fillInts(IntBuffer out, int bound)
+    {
+        getInstance().getEngine().fillInts(out, bound);
+    }
+    
+    /**
+     * Fills an array with random longs, by using the current random engine.
+     * @param out The array to fill.
+     */
+    public static void fillLongs(long[] out)
+    {
+        getInstance().getEngine().fillLongs(out, 0, out.length);
+    }
+    
+    /**
+     * Fills a bitset, stored as an array of longs, with random boolean values,
+     * by using the current random engine.
+     * @param bits The bitset to fill.
+     * @param count The amount of random booleans to generate.
+     */
+    public static void fillBooleans(long[] bits, int count)
+    {
+        getInstance().getEngine().fillBooleans(bits, count);
     }
     
     /**
      * General implementation of the Fisher–Yates shuffle algorithm
-     * (http://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle).
+     * (http://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle). For in-place
+     * and partial shuffles of primitive arrays, object arrays and lists, see
+     * the ShuffleTools class.
      * @param input The input array.
      * @return A shuffled array copy.
      */
@@ -130,15 +576,16 @@ public abstract class RandomTool
         if(input == null)
             return null;
         
+        T[] res = input.clone();
+        
         if(input.length == 0)
-            return (T[])Array.newInstance(input.getClass().getComponentType(), 0);
+            return res;
         
-        T[] res = (T[])Array.newInstance(input.getClass().getComponentType(), input.length);
-        res[0] = input[0];
+        RandomEngine engine = getInstance().getEngine();
         
         for(int i = 1; i < input.length; i++)
         {
-            int rand = getInt(i + 1);
+            int rand = engine.nextInt(i + 1);
             res[i] = res[rand];
             res[rand] = input[i];
         }
@@ -147,13 +594,21 @@ public abstract class RandomTool
     }
     
     /**
-     * Gets the current random object configured in the tool.
+     * Gets the current random engine configured in the tool.
+     * @return The random engine.
+     */
+    public abstract RandomEngine getEngine();
+    
+    /**
+     * Gets a java.util.Random view of the current random engine configured in
+     * the tool.
      * @return The random object.
      */
     public abstract Random getRandom();
     
     /**
-     * Generates a new random seed that can be used with this tool.
+     * Generates a new random seed that can be used with this tool. Seeds 
+     * generated in the same instant are different.
      * @return The generated seed.
      */
     public abstract long createRandomSeed();
@@ -169,4 +624,22 @@ public abstract class RandomTool
      * @return The seed as long.
      */
     public abstract long getSeed();
-}
\ No newline at end of file
+    
+    /**
+     * Gets the item that holds the stream of the current thread.
+     * @return The random item.
+     */
+    abstract RandomItem getCurrentItem();
+    
+    /**
+     * Captures the state of all the streams of this tool.
+     * @return The snapshot.
+     */
+    abstract RandomState captureState();
+    
+    /**
+     * Restores the state of the streams of this tool.
+     * @param state The snapshot to restore.
+     */
+    abstract void restoreState(RandomState state);
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+
+package optefx.util.random;
+
+/**
+ * Provides bulk generators of random vectors for continuous optimization,
+ * e.g., for the initialization of particles or the sampling of mutation 
+ * directions. The vectors are written into flat preallocated arrays in 
+ * row-major order, i.e., the component j of the vector i is stored in the 
+ * position (i * dimensions + j), so no objects are created per vector.
+ *
+ * Every operation can be performed with an explicit random engine or with the
+ * current engine of the random tool. In the latter case, the engine is
+ * resolved only once per call.
+ * @author Enrique Urra C.
+ */
+public final class RandomVectors
+{
+    private RandomVectors()
+    {
+    }
+
+    /**
+     * Checks that a flat array can store the requested vectors.
+     * @param out The array.
+     * @param count The amount of vectors.
+     * @param dimensions The dimensions of each vector.
+     */
+    private static void checkMatrix(double[] out, int count, int dimensions)
+    {
+        if(count < 0)
+            throw new IllegalArgumentException("The amount of vectors cannot be negative");
+
+        if(dimensions <= 0)
+            throw new IllegalArgumentException("The amount of dimensions must be positive");
+
+        if((long)count * dimensions > out.length)
+            throw new IllegalArgumentException("The array cannot store " + count + " vectors of " + dimensions + " dimensions");
+    }
+
+    /**
+     * Generates points uniformly distributed in a box.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param lower The lower bounds of each dimension (inclusive).
+     * @param upper The upper bounds of each dimension (exclusive).
+     * @param engine The engine to use.
+     */
+    public static void uniformBox(double[] out, int count, double[] lower, double[] upper, RandomEngine engine)
+    {
+        int dimensions = lower.length;
+
+        if(upper.length != dimensions)
+            throw new IllegalArgumentException("The bounds must have the same length");
+
+        checkMatrix(out, count, dimensions);
+        engine.fillDoubles(out, 0, count * dimensions, 0.0, 1.0);
+        int pos = 0;
+
+        for(int i = 0; i < count; i++)
+        {
+            for(int j = 0; j < dimensions; j++, pos++)
+                out[pos] = lower[j] + (upper[j] - lower[j]) * out[pos];
+        }
+    }
+
+    /**
+     * Generates points uniformly distributed in a box, by using the current 
+     * engine of the random tool.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param lower The lower bounds of each dimension (inclusive).
+     * @param upper The upper bounds of each dimension (exclusive).
+     */
+    public static void uniformBox(double[] out, int count, double[] lower, double[] upper)
+    {
+        uniformBox(out, count, lower, upper, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Generates points uniformly distributed in a hypercube with the same 
+     * bounds in every dimension.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     * @param from The lower bound (inclusive).
+     * @param to The upper bound (exclusive).
+     * @param engine The engine to use.
+     */
+    public static void uniformBox(double[] out, int count, int dimensions, double from, double to, RandomEngine engine)
+    {
+        checkMatrix(out, count, dimensions);
+        engine.fillDoubles(out, 0, count * dimensions, from, to);
+    }
+
+    /**
+     * Generates points uniformly distributed in a hypercube with the same 
+     * bounds in every dimension, by using the current engine of the random 
+     * tool.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     * @param from The lower bound (inclusive).
+     * @param to The upper bound (exclusive).
+     */
+    public static void uniformBox(double[] out, int count, int dimensions, double from, double to)
+    {
+        uniformBox(out, count, dimensions, from, to, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Generates directions uniformly distributed on the surface of the unit 
+     * sphere, by normalizing vectors of independent gaussians (ziggurat 
+     * method).
+     * @param out The array in which the directions are stored.
+     * @param count The amount of directions.
+     * @param dimensions The dimensions of each direction.
+     * @param engine The engine to use.
+     */
+    public static void unitSphere(double[] out, int count, int dimensions, RandomEngine engine)
+    {
+        checkMatrix(out, count, dimensions);
+
+        for(int i = 0; i < count; i++)
+        {
+            int start = i * dimensions;
+            int end = start + dimensions;
+            double norm2;
+
+            do
+            {
+                norm2 = 0.0;
+
+                for(int j = start; j < end; j++)
+                {
+                    double z = Ziggurat.normal(engine);
+                    out[j] = z;
+                    norm2 += z * z;
+                }
+            }
+            while(norm2 == 0.0);
+
+            double inv = 1.0 / Math.sqrt(norm2);
+
+            for(int j = start; j < end; j++)
+                out[j] *= inv;
+        }
+    }
+
+    /**
+     * Generates directions uniformly distributed on the surface of the unit 
+     * sphere, by using the current engine of the random tool.
+     * @param out The array in which the directions are stored.
+     * @param count The amount of directions.
+     * @param dimensions The dimensions of each direction.
+     */
+    public static void unitSphere(double[] out, int count, int dimensions)
+    {
+        unitSphere(out, count, dimensions, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Generates points uniformly distributed on the standard simplex, i.e., 
+     * with non-negative components that sum one (Dirichlet distribution with
+     * unit parameters), by normalizing vectors of independent exponentials 
+     * (ziggurat method).
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     * @param engine The engine to use.
+     */
+    public static void simplex(double[] out, int count, int dimensions, RandomEngine engine)
+    {
+        checkMatrix(out, count, dimensions);
+
+        for(int i = 0; i < count; i++)
+        {
+            int start = i * dimensions;
+            int end = start + dimensions;
+            double sum;
+
+            do
+            {
+                sum = 0.0;
+
+                for(int j = start; j < end; j++)
+                {
+                    double e = Ziggurat.exponential(engine);
+                    out[j] = e;
+                    sum += e;
+                }
+            }
+            while(sum == 0.0);
+
+            double inv = 1.0 / sum;
+
+            for(int j = start; j < end; j++)
+                out[j] *= inv;
+        }
+    }
+
+    /**
+     * Generates points uniformly distributed on the standard simplex, by 
+     * using the current engine of the random tool.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     */
+    public static void simplex(double[] out, int count, int dimensions)
+    {
+        simplex(out, count, dimensions, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Generates a Latin hypercube sample in [0, 1)^dimensions: each dimension
+     * is divided into count strata of equal width, and each stratum contains
+     * exactly one point, at a uniformly random position within the stratum.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     * @param engine The engine to use.
+     */
+    public static void latinHypercube(double[] out, int count, int dimensions, RandomEngine engine)
+    {
+        checkMatrix(out, count, dimensions);
+        int[] strata = new int[count];
+        double width = 1.0 / count;
+
+        for(int j = 0; j < dimensions; j++)
+        {
+            for(int i = 0; i < count; i++)
+                strata[i] = i;
+
+            ShuffleTools.shuffle(strata, engine);
+
+            for(int i = 0; i < count; i++)
+                out[i * dimensions + j] = (strata[i] + engine.nextDouble()) * width;
+        }
+    }
+
+    /**
+     * Generates a Latin hypercube sample in [0, 1)^dimensions, by using the 
+     * current engine of the random tool.
+     * @param out The array in which the points are stored.
+     * @param count The amount of points.
+     * @param dimensions The dimensions of each point.
+     */
+    public static void latinHypercube(double[] out, int count, int dimensions)
+    {
+        latinHypercube(out, count, dimensions, RandomTool.getInstance().getEngine());
+    }
+}
@@ -0,0 +1,276 @@
+
+package optefx.util.random;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Provides algorithms for sampling without replacement, which only require
+ * time and memory proportional to the amount of sampled elements:
+ * - Floyd's subset sampling, which draws k distinct indices from [0, n) with
+ *   exactly k random numbers, returned as an int array or as a bitset.
+ * - Reservoir sampling (algorithm L, Li 1994) over iterators and spliterators,
+ *   which selects k elements from a stream of unknown length by skipping
+ *   elements instead of drawing a random number for each one.
+ *
+ * Every operation can be performed with an explicit random engine or with the
+ * current engine of the random tool.
+ * @author Enrique Urra C.
+ */
+public final class SamplingTools
+{
+    /**
+     * The maximum capacity of the hash table used by Floyd's algorithm.
+     */
+    private static final int MAX_TABLE_CAPACITY = 1 << 30;
+
+    private SamplingTools()
+    {
+    }
+
+    /**
+     * Checks that a sample size is valid for a population.
+     * @param n The size of the population.
+     * @param k The size of the sample.
+     */
+    private static void checkSample(int n, int k)
+    {
+        if(n < 0)
+            throw new IllegalArgumentException("The population size cannot be negative");
+
+        if(k < 0 || k > n)
+            throw new IllegalArgumentException("Invalid sample size " + k + " for a population of size " + n);
+    }
+
+    /**
+     * Gets a random double number in the open interval (0, 1).
+     * @param engine The engine to use.
+     * @return The random double obtained.
+     */
+    private static double nextOpenDouble(RandomEngine engine)
+    {
+        return ((engine.nextLong() >>> 12) + 0.5) * 0x1.0p-52;
+    }
+
+    /**
+     * Draws k distinct indices from [0, n) through Floyd's algorithm. Each
+     * subset has the same probability to be selected, but the order of the
+     * indices in the returned array is not uniformly random (for very large
+     * samples, of more than 2^29 indices, the indices are sorted). If a random
+     * order is required, the array can be shuffled with ShuffleTools.
+     * @param n The size of the population.
+     * @param k The size of the sample.
+     * @param engine The engine to use.
+     * @return The sampled indices.
+     */
+    public static int[] sampleIndices(int n, int k, RandomEngine engine)
+    {
+        checkSample(n, k);
+        int[] res = new int[k];
+
+        if(k == 0)
+            return res;
+
+        // Open addressing set, with a load factor of at most 0.5
+        long capacityBound = (long)Integer.highestOneBit(Math.max(2, k) - 1) << 2;
+
+        if(capacityBound > MAX_TABLE_CAPACITY)
+        {
+            // The table cannot be allocated, so the sample is drawn as a
+            // bitset, whose size is proportional to n instead of k
+            long[] bits = sampleBits(n, k, engine);
+            int count = 0;
+
+            for(int i = 0; i < bits.length; i++)
+            {
+                long word = bits[i];
+
+                while(word != 0)
+                {
+                    res[count++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+
+            return res;
+        }
+
+        int capacity = (int)capacityBound;
+        int mask = capacity - 1;
+        int[] table = new int[capacity];
+        int count = 0;
+
+        for(int j = n - k; j < n; j++)
+        {
+            int t = engine.nextInt(j + 1);
+            int slot = (t * 0x9E3779B9) & mask;
+
+            // Values are stored as (value + 1), so zero marks an empty slot
+            while(table[slot] != 0 && table[slot] != t + 1)
+                slot = (slot + 1) & mask;
+
+            if(table[slot] != 0)
+            {
+                // t was already selected, so j is taken. As j has never been
+                // available before, it cannot be in the set
+                t = j;
+                slot = (t * 0x9E3779B9) & mask;
+
+                while(table[slot] != 0)
+                    slot = (slot + 1) & mask;
+            }
+
+            table[slot] = t + 1;
+            res[count++] = t;
+        }
+
+        return res;
+    }
+
+    /**
+     * Draws k distinct indices from [0, n) through Floyd's algorithm, by using
+     * the current engine of the random tool.
+     * @param n The size of the population.
+     * @param k The size of the sample.
+     * @return The sampled indices.
+     */
+    public static int[] sampleIndices(int n, int k)
+    {
+        return sampleIndices(n, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Draws k distinct indices from [0, n) through Floyd's algorithm, and
+     * returns them as a bitset stored in an array of longs. The index i is
+     * selected if the bit (i % 64) of the element (i / 64) is set. If k is
+     * greater than n / 2, the complement of a sample of size n - k is computed
+     * instead.
+     * @param n The size of the population.
+     * @param k The size of the sample.
+     * @param engine The engine to use.
+     * @return The bitset of sampled indices.
+     */
+    public static long[] sampleBits(int n, int k, RandomEngine engine)
+    {
+        checkSample(n, k);
+        long[] bits = new long[(n + 63) >>> 6];
+        boolean complement = k > n / 2;
+        int count = complement ? n - k : k;
+
+        for(int j = n - count; j < n; j++)
+        {
+            int t = engine.nextInt(j + 1);
+
+            if((bits[t >>> 6] & (1L << t)) != 0)
+                t = j;
+
+            bits[t >>> 6] |= 1L << t;
+        }
+
+        if(complement)
+        {
+            for(int i = 0; i < bits.length; i++)
+                bits[i] = ~bits[i];
+
+            if((n & 63) != 0)
+                bits[bits.length - 1] &= -1L >>> (64 - (n & 63));
+        }
+
+        return bits;
+    }
+
+    /**
+     * Draws k distinct indices from [0, n) as a bitset, by using the current
+     * engine of the random tool.
+     * @param n The size of the population.
+     * @param k The size of the sample.
+     * @return The bitset of sampled indices.
+     */
+    public static long[] sampleBits(int n, int k)
+    {
+        return sampleBits(n, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Selects k elements from an iterator through reservoir sampling. Each
+     * subset of the iterated elements has the same probability to be selected.
+     * If the iterator provides less than k elements, all of them are returned.
+     * @param it The iterator.
+     * @param k The size of the sample.
+     * @param engine The engine to use.
+     * @return A list with the selected elements.
+     */
+    public static <T> List<T> reservoir(Iterator<? extends T> it, int k, RandomEngine engine)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The sample size cannot be negative");
+
+        ArrayList<T> res = new ArrayList<>(k);
+
+        while(res.size() < k && it.hasNext())
+            res.add(it.next());
+
+        if(k == 0 || res.size() < k)
+            return res;
+
+        double w = Math.exp(Math.log(nextOpenDouble(engine)) / k);
+
+        while(true)
+        {
+            long skip = (long)(Math.log(nextOpenDouble(engine)) / Math.log1p(-w));
+
+            for(long i = 0; i < skip; i++)
+            {
+                if(!it.hasNext())
+                    return res;
+
+                it.next();
+            }
+
+            if(!it.hasNext())
+                return res;
+
+            res.set(engine.nextInt(k), it.next());
+            w *= Math.exp(Math.log(nextOpenDouble(engine)) / k);
+        }
+    }
+
+    /**
+     * Selects k elements from an iterator through reservoir sampling, by using
+     * the current engine of the random tool.
+     * @param it The iterator.
+     * @param k The size of the sample.
+     * @return A list with the selected elements.
+     */
+    public static <T> List<T> reservoir(Iterator<? extends T> it, int k)
+    {
+        return reservoir(it, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Selects k elements from a spliterator through reservoir sampling.
+     * @param spliterator The spliterator.
+     * @param k The size of the sample.
+     * @param engine The engine to use.
+     * @return A list with the selected elements.
+     */
+    public static <T> List<T> reservoir(Spliterator<? extends T> spliterator, int k, RandomEngine engine)
+    {
+        return reservoir(Spliterators.iterator(spliterator), k, engine);
+    }
+
+    /**
+     * Selects k elements from a spliterator through reservoir sampling, by
+     * using the current engine of the random tool.
+     * @param spliterator The spliterator.
+     * @param k The size of the sample.
+     * @return A list with the selected elements.
+     */
+    public static <T> List<T> reservoir(Spliterator<? extends T> spliterator, int k)
+    {
+        return reservoir(spliterator, k, RandomTool.getInstance().getEngine());
+    }
+}
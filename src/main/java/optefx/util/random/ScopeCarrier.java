@@ -0,0 +1,54 @@
+
+package optefx.util.random;
+
+import java.util.function.Supplier;
+
+/**
+ * Binds the current random scope to the executing code. This implementation
+ * uses a ThreadLocal object, so the scope is only visible to the thread that
+ * binds it, and the tasks executed in other threads must be wrapped through 
+ * RandomScope.wrap(). In Java 25 and later, a ScopedValue implementation is 
+ * provided instead through the multi-release JAR.
+ * @author Enrique Urra C.
+ */
+final class ScopeCarrier
+{
+    private static final ThreadLocal<RandomScope> current = new ThreadLocal<>();
+
+    private ScopeCarrier()
+    {
+    }
+
+    /**
+     * Gets the scope bound to the executing code.
+     * @return The scope, or null if no scope is bound.
+     */
+    static RandomScope get()
+    {
+        return current.get();
+    }
+
+    /**
+     * Executes a task with a scope bound.
+     * @param scope The scope.
+     * @param task The task.
+     * @return The result of the task.
+     */
+    static <T> T call(RandomScope scope, Supplier<T> task)
+    {
+        RandomScope previous = current.get();
+        current.set(scope);
+
+        try
+        {
+            return task.get();
+        }
+        finally
+        {
+            if(previous == null)
+                current.remove();
+            else
+                current.set(previous);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+
+package optefx.util.random;
+
+import java.util.Random;
+
+/**
+ * Implements a scoped random tool, which provides the stream of the random 
+ * scope bound to the executing task (see RandomScope). When no scope is bound,
+ * the thread-local streams are used. The snapshots only include the 
+ * thread-local streams.
+ * @author Enrique Urra C.
+ */
+class ScopedRandomTool extends ThreadLocalRandomTool
+{
+    /**
+     * Creates the tool with a specific engine type.
+     * @param engineType The type of the engines.
+     */
+    public ScopedRandomTool(RandomEngineType engineType)
+    {
+        super(engineType);
+    }
+
+    @Override
+    public RandomEngine getEngine()
+    {
+        RandomScope scope = ScopeCarrier.get();
+        return scope != null ? scope.getItem().getEngine() : super.getEngine();
+    }
+
+    @Override
+    public Random getRandom()
+    {
+        RandomScope scope = ScopeCarrier.get();
+        return scope != null ? scope.getItem().getRandom() : super.getRandom();
+    }
+
+    @Override
+    RandomItem getCurrentItem()
+    {
+        RandomScope scope = ScopeCarrier.get();
+        return scope != null ? scope.getItem() : super.getCurrentItem();
+    }
+
+    @Override
+    RandomState captureState()
+    {
+        return captureState(MODE_SCOPED);
+    }
+}
@@ -0,0 +1,73 @@
+
+package optefx.util.random;
+
+/**
+ * Derives reproducible seeds from a root seed, for running many independent
+ * replicates of an experiment without any coordination between them. The seed
+ * of each index is obtained by mixing the root seed and the index through the
+ * SplitMix64 function, which guarantees that different indices of the same 
+ * sequence never produce the same seed. Sequences can also be nested through
+ * the child() method, e.g., experiment - replicate - worker.
+ *
+ * As the LCG48 engine only uses 48 bits of its seed, the engines with larger
+ * states are recommended when many replicates are executed.
+ * @author Enrique Urra C.
+ */
+public final class SeedSequence
+{
+    private static final long CHILD_SALT = 0xD1B54A32D192ED03L;
+
+    private final long rootSeed;
+    private final long base;
+
+    /**
+     * Creates a sequence from a root seed.
+     * @param rootSeed The root seed.
+     */
+    public SeedSequence(long rootSeed)
+    {
+        this.rootSeed = rootSeed;
+        this.base = RandomEngine.mix64(rootSeed);
+    }
+
+    /**
+     * Gets the root seed of this sequence.
+     * @return The root seed.
+     */
+    public long getRootSeed()
+    {
+        return rootSeed;
+    }
+
+    /**
+     * Derives the seed of an index.
+     * @param index The index.
+     * @return The derived seed.
+     */
+    public long deriveSeed(long index)
+    {
+        return RandomEngine.mix64(base + (index + 1) * SplitMix64Engine.GOLDEN_GAMMA);
+    }
+
+    /**
+     * Creates a nested sequence for an index, whose seeds are independent from
+     * the ones of this sequence.
+     * @param index The index.
+     * @return The nested sequence.
+     */
+    public SeedSequence child(long index)
+    {
+        return new SeedSequence(deriveSeed(index) ^ CHILD_SALT);
+    }
+
+    /**
+     * Creates an engine seeded with the derived seed of an index.
+     * @param index The index.
+     * @param type The type of the engine.
+     * @return The new engine.
+     */
+    public RandomEngine createEngine(long index, RandomEngineType type)
+    {
+        return type.create(deriveSeed(index));
+    }
+}
@@ -0,0 +1,339 @@
+
+package optefx.util.random;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * Provides in-place shuffle operations for primitive arrays, object arrays
+ * and lists, based on the Fisher–Yates algorithm
+ * (http://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle). No copies of
+ * the input are performed, except for lists that do not support random
+ * access.
+ *
+ * Partial shuffles are also provided, which only randomize the first k
+ * positions of the input. After a partial shuffle, such positions contain a
+ * uniformly chosen k-permutation of the elements, which only requires k
+ * random numbers.
+ *
+ * Every operation can be performed with an explicit random engine or with the
+ * current engine of the random tool. In the latter case, the engine is
+ * resolved only once per call.
+ * @author Enrique Urra C.
+ */
+public final class ShuffleTools
+{
+    private ShuffleTools()
+    {
+    }
+
+    /**
+     * Checks that the amount of positions to shuffle is valid.
+     * @param length The length of the input.
+     * @param k The amount of positions to shuffle.
+     */
+    private static void checkCount(int length, int k)
+    {
+        if(k < 0 || k > length)
+            throw new IllegalArgumentException("Invalid amount of positions to shuffle: " + k + " (length " + length + ")");
+    }
+
+    /**
+     * Shuffles an int array in place.
+     * @param array The array to shuffle.
+     * @param engine The engine to use.
+     */
+    public static void shuffle(int[] array, RandomEngine engine)
+    {
+        for(int i = array.length - 1; i > 0; i--)
+        {
+            int j = engine.nextInt(i + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles an int array in place, by using the current engine of the
+     * random tool.
+     * @param array The array to shuffle.
+     */
+    public static void shuffle(int[] array)
+    {
+        shuffle(array, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Randomizes the first k positions of an int array in place.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     * @param engine The engine to use.
+     */
+    public static void partialShuffle(int[] array, int k, RandomEngine engine)
+    {
+        checkCount(array.length, k);
+        int n = array.length;
+
+        for(int i = 0; i < k; i++)
+        {
+            int j = i + engine.nextInt(n - i);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Randomizes the first k positions of an int array in place, by using the
+     * current engine of the random tool.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     */
+    public static void partialShuffle(int[] array, int k)
+    {
+        partialShuffle(array, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Shuffles a long array in place.
+     * @param array The array to shuffle.
+     * @param engine The engine to use.
+     */
+    public static void shuffle(long[] array, RandomEngine engine)
+    {
+        for(int i = array.length - 1; i > 0; i--)
+        {
+            int j = engine.nextInt(i + 1);
+            long tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles a long array in place, by using the current engine of the
+     * random tool.
+     * @param array The array to shuffle.
+     */
+    public static void shuffle(long[] array)
+    {
+        shuffle(array, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Randomizes the first k positions of a long array in place.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     * @param engine The engine to use.
+     */
+    public static void partialShuffle(long[] array, int k, RandomEngine engine)
+    {
+        checkCount(array.length, k);
+        int n = array.length;
+
+        for(int i = 0; i < k; i++)
+        {
+            int j = i + engine.nextInt(n - i);
+            long tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Randomizes the first k positions of a long array in place, by using the
+     * current engine of the random tool.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     */
+    public static void partialShuffle(long[] array, int k)
+    {
+        partialShuffle(array, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Shuffles a double array in place.
+     * @param array The array to shuffle.
+     * @param engine The engine to use.
+     */
+    public static void shuffle(double[] array, RandomEngine engine)
+    {
+        for(int i = array.length - 1; i > 0; i--)
+        {
+            int j = engine.nextInt(i + 1);
+            double tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles a double array in place, by using the current engine of the
+     * random tool.
+     * @param array The array to shuffle.
+     */
+    public static void shuffle(double[] array)
+    {
+        shuffle(array, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Randomizes the first k positions of a double array in place.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     * @param engine The engine to use.
+     */
+    public static void partialShuffle(double[] array, int k, RandomEngine engine)
+    {
+        checkCount(array.length, k);
+        int n = array.length;
+
+        for(int i = 0; i < k; i++)
+        {
+            int j = i + engine.nextInt(n - i);
+            double tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Randomizes the first k positions of a double array in place, by using
+     * the current engine of the random tool.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     */
+    public static void partialShuffle(double[] array, int k)
+    {
+        partialShuffle(array, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Shuffles an object array in place.
+     * @param array The array to shuffle.
+     * @param engine The engine to use.
+     */
+    public static <T> void shuffle(T[] array, RandomEngine engine)
+    {
+        for(int i = array.length - 1; i > 0; i--)
+        {
+            int j = engine.nextInt(i + 1);
+            T tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles an object array in place, by using the current engine of the
+     * random tool.
+     * @param array The array to shuffle.
+     */
+    public static <T> void shuffle(T[] array)
+    {
+        shuffle(array, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Randomizes the first k positions of an object array in place.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     * @param engine The engine to use.
+     */
+    public static <T> void partialShuffle(T[] array, int k, RandomEngine engine)
+    {
+        checkCount(array.length, k);
+        int n = array.length;
+
+        for(int i = 0; i < k; i++)
+        {
+            int j = i + engine.nextInt(n - i);
+            T tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Randomizes the first k positions of an object array in place, by using
+     * the current engine of the random tool.
+     * @param array The array to shuffle.
+     * @param k The amount of positions to randomize.
+     */
+    public static <T> void partialShuffle(T[] array, int k)
+    {
+        partialShuffle(array, k, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Shuffles a list in place. Lists that do not support random access are
+     * copied into an array, which is shuffled and then written back.
+     * @param list The list to shuffle.
+     * @param engine The engine to use.
+     */
+    public static <T> void shuffle(List<T> list, RandomEngine engine)
+    {
+        partialShuffle(list, list.size(), engine);
+    }
+
+    /**
+     * Shuffles a list in place, by using the current engine of the random
+     * tool.
+     * @param list The list to shuffle.
+     */
+    public static <T> void shuffle(List<T> list)
+    {
+        shuffle(list, RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Randomizes the first k positions of a list in place. Lists that do not
+     * support random access are copied into an array, which is shuffled and
+     * then written back.
+     * @param list The list to shuffle.
+     * @param k The amount of positions to randomize.
+     * @param engine The engine to use.
+     */
+    public static <T> void partialShuffle(List<T> list, int k, RandomEngine engine)
+    {
+        int n = list.size();
+        checkCount(n, k);
+
+        if(list instanceof RandomAccess)
+        {
+            for(int i = 0; i < k; i++)
+            {
+                int j = i + engine.nextInt(n - i);
+                list.set(i, list.set(j, list.get(i)));
+            }
+
+            return;
+        }
+
+        Object[] array = list.toArray();
+        partialShuffle(array, k, engine);
+        ListIterator<T> it = list.listIterator();
+
+        for(int i = 0; i < n; i++)
+        {
+            // The array only contains the elements of the list
+            @SuppressWarnings("unchecked")
+            T element = (T)array[i];
+            it.next();
+            it.set(element);
+        }
+    }
+
+    /**
+     * Randomizes the first k positions of a list in place, by using the
+     * current engine of the random tool.
+     * @param list The list to shuffle.
+     * @param k The amount of positions to randomize.
+     */
+    public static <T> void partialShuffle(List<T> list, int k)
+    {
+        partialShuffle(list, k, RandomTool.getInstance().getEngine());
+    }
+}
@@ -5,7 +5,7 @@ import java.util.Random;
 
 /**
  * Implements a single-thread random tool, which encapsulates a single random
- * instance.
+ * engine.
  * @author Enrique Urra C.
  */
 class SingleThreadRandomTool extends RandomTool
@@ -16,11 +16,18 @@ class SingleThreadRandomTool extends RandomTool
     private RandomItem item;
 
     /**
-     * The default constructor.
+     * Creates the tool with a specific engine type.
+     * @param engineType The type of the engine.
      */
-    public SingleThreadRandomTool()
+    public SingleThreadRandomTool(RandomEngineType engineType)
     {
-        item = new RandomItem(createRandomSeed());
+        item = new RandomItem(engineType, createRandomSeed());
+    }
+    
+    @Override
+    public RandomEngine getEngine()
+    {
+        return item.getEngine();
     }
     
     @Override
@@ -32,7 +39,7 @@ class SingleThreadRandomTool extends RandomTool
     @Override
     public final long createRandomSeed()
     {
-        return System.currentTimeMillis();
+        return createUniqueSeed();
     }
 
     @Override
@@ -46,4 +53,28 @@ class SingleThreadRandomTool extends RandomTool
     {
         return item.getSeed();
     }
+
+    @Override
+    RandomItem getCurrentItem()
+    {
+        return item;
+    }
+
+    @Override
+    RandomState captureState()
+    {
+        return new RandomState(MODE_SINGLE_THREAD, item.getEngine().getType(), item.getSeed(), 
+            new long[] { item.getSeed() }, new long[][] { item.getState() });
+    }
+
+    @Override
+    void restoreState(RandomState state)
+    {
+        RandomItem newItem = new RandomItem(state.getEngineType(), state.getMasterSeed());
+
+        if(state.getStreamCount() > 0)
+            newItem.restore(state.getSeed(0), state.getState(0));
+
+        item = newItem;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,259 @@
+
+package optefx.util.random;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Implements the Sobol low-discrepancy sequence with 32-bit resolution, which
+ * supports up to 2^32 points and up to 1000 dimensions. The points are 
+ * generated in Gray code order, i.e., each point only requires a single xor 
+ * operation per dimension.
+ *
+ * The first dimension is the van der Corput sequence. The remaining dimensions
+ * use the primitive polynomials and initial direction numbers of the 
+ * new-joe-kuo-6 table by Joe and Kuo (2008), which optimizes the quality of 
+ * the two-dimensional projections. The table is bundled as a resource of this
+ * package, and it is loaded the first time a sequence is created. Therefore,
+ * the unscrambled points are the same than the ones of other implementations
+ * that use such table.
+ *
+ * An Owen-scrambled variant is available by providing a seed. The scrambling
+ * is performed through the hash-based nested uniform permutation by Laine and
+ * Karras (2011), as described by Burley (2020). It preserves the 
+ * low-discrepancy properties of the sequence, and the different seeds produce
+ * independent randomized sequences.
+ * @author Enrique Urra C.
+ */
+public final class SobolSequence extends LowDiscrepancySequence
+{
+    /**
+     * The maximum amount of dimensions.
+     */
+    public static final int MAX_DIMENSIONS = 1000;
+
+    private static final int BITS = 32;
+
+    /**
+     * Maintains the table of Joe and Kuo, loaded when it is first required. 
+     * The entry i corresponds to the dimension i + 1 (the dimension zero does 
+     * not require a polynomial).
+     */
+    private static final class DirectionTable
+    {
+        private static final String RESOURCE = "new-joe-kuo-6.1000";
+        private static final int[] degrees = new int[MAX_DIMENSIONS - 1];
+        private static final int[] polynomials = new int[MAX_DIMENSIONS - 1];
+        private static final int[][] initials = new int[MAX_DIMENSIONS - 1][];
+
+        static
+        {
+            try(InputStream input = SobolSequence.class.getResourceAsStream(RESOURCE))
+            {
+                if(input == null)
+                    throw new IOException("The resource '" + RESOURCE + "' was not found");
+
+                load(new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII)));
+            }
+            catch(IOException | RuntimeException ex)
+            {
+                throw new RuntimeException("Error while loading the Sobol direction numbers", ex);
+            }
+        }
+
+        /**
+         * Reads the lines of the table, with the format "d s a m_1 ... m_s".
+         * The lines starting with '#' and the header line are ignored.
+         */
+        private static void load(BufferedReader reader) throws IOException
+        {
+            int count = 0;
+            String line;
+
+            while((line = reader.readLine()) != null && count < degrees.length)
+            {
+                line = line.trim();
+
+                if(line.isEmpty() || line.startsWith("#") || line.startsWith("d"))
+                    continue;
+
+                String[] fields = line.split("\\s+");
+                int dimension = Integer.parseInt(fields[0]);
+                int s = Integer.parseInt(fields[1]);
+                int a = Integer.parseInt(fields[2]);
+
+                if(dimension != count + 2 || fields.length != s + 3)
+                    throw new IOException("Invalid line of the table: " + line);
+
+                // x^s + a_1 x^(s-1) + ... + a_(s-1) x + 1, with a = a_1 ... a_(s-1)
+                degrees[count] = s;
+                polynomials[count] = (1 << s) | (a << 1) | 1;
+                initials[count] = new int[s];
+
+                for(int k = 0; k < s; k++)
+                    initials[count][k] = Integer.parseInt(fields[k + 3]);
+
+                count++;
+            }
+
+            if(count != degrees.length)
+                throw new IOException("The table only contains " + (count + 1) + " dimensions");
+        }
+    }
+
+    private final int[][] directions;
+    private final int[] current;
+    private final int[] scrambleSeeds;
+
+    /**
+     * Creates the (unscrambled) sequence.
+     * @param dimensions The amount of dimensions.
+     */
+    public SobolSequence(int dimensions)
+    {
+        this(dimensions, false, 0);
+    }
+
+    /**
+     * Creates an Owen-scrambled sequence.
+     * @param dimensions The amount of dimensions.
+     * @param scrambleSeed The seed of the scrambling.
+     */
+    public SobolSequence(int dimensions, long scrambleSeed)
+    {
+        this(dimensions, true, scrambleSeed);
+    }
+
+    private SobolSequence(int dimensions, boolean scrambled, long scrambleSeed)
+    {
+        super(dimensions);
+
+        if(dimensions > MAX_DIMENSIONS)
+            throw new IllegalArgumentException("The maximum amount of dimensions is " + MAX_DIMENSIONS);
+
+        directions = new int[dimensions][];
+        current = new int[dimensions];
+
+        for(int d = 0; d < dimensions; d++)
+            directions[d] = computeDirections(d);
+
+        if(scrambled)
+        {
+            scrambleSeeds = new int[dimensions];
+            SeedSequence seeds = new SeedSequence(scrambleSeed);
+
+            for(int d = 0; d < dimensions; d++)
+                scrambleSeeds[d] = (int)seeds.deriveSeed(d);
+        }
+        else
+        {
+            scrambleSeeds = null;
+        }
+    }
+
+    /**
+     * Computes the direction numbers of a dimension.
+     * @param dimension The dimension.
+     * @return The direction numbers, aligned to the most significant bit.
+     */
+    private static int[] computeDirections(int dimension)
+    {
+        int[] v = new int[BITS];
+
+        if(dimension == 0)
+        {
+            for(int k = 0; k < BITS; k++)
+                v[k] = 1 << (BITS - 1 - k);
+
+            return v;
+        }
+
+        int poly = DirectionTable.polynomials[dimension - 1];
+        int s = DirectionTable.degrees[dimension - 1];
+        int[] m = new int[BITS];
+        System.arraycopy(DirectionTable.initials[dimension - 1], 0, m, 0, Math.min(s, BITS));
+
+        for(int k = s; k < BITS; k++)
+        {
+            int value = m[k - s] ^ (m[k - s] << s);
+
+            for(int j = 1; j < s; j++)
+            {
+                if(((poly >>> (s - j)) & 1) != 0)
+                    value ^= m[k - j] << j;
+            }
+
+            m[k] = value;
+        }
+
+        for(int k = 0; k < BITS; k++)
+            v[k] = m[k] << (BITS - 1 - k);
+
+        return v;
+    }
+
+    /**
+     * Applies the nested uniform scrambling to a coordinate.
+     * @param x The coordinate, as a 32-bit fraction.
+     * @param seed The seed of the dimension.
+     * @return The scrambled coordinate.
+     */
+    private static int scramble(int x, int seed)
+    {
+        x = Integer.reverse(x);
+        x += seed;
+        x ^= x * 0x6C50B47C;
+        x ^= x * 0xB82F1E52;
+        x ^= x * 0xC7AFE638;
+        x ^= x * 0x8D22F6E6;
+        return Integer.reverse(x);
+    }
+
+    @Override
+    public void skipTo(long index)
+    {
+        if(index >= (1L << BITS))
+            throw new IllegalArgumentException("The maximum index is 2^" + BITS + " - 1");
+
+        super.skipTo(index);
+        long gray = index ^ (index >>> 1);
+
+        for(int d = 0; d < dimensions; d++)
+        {
+            int x = 0;
+
+            for(int k = 0; k < BITS; k++)
+            {
+                if(((gray >>> k) & 1) != 0)
+                    x ^= directions[d][k];
+            }
+
+            current[d] = x;
+        }
+    }
+
+    @Override
+    protected void generate(double[] out, int offset)
+    {
+        if(index >= (1L << BITS))
+            throw new IllegalStateException("The sequence has been exhausted");
+
+        for(int d = 0; d < dimensions; d++)
+        {
+            int x = scrambleSeeds == null ? current[d] : scramble(current[d], scrambleSeeds[d]);
+            out[offset + d] = (x & 0xFFFFFFFFL) * 0x1.0p-32;
+        }
+
+        int bit = Long.numberOfTrailingZeros(~index);
+        index++;
+
+        if(bit < BITS)
+        {
+            for(int d = 0; d < dimensions; d++)
+                current[d] ^= directions[d][bit];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the SplitMix64 engine (Steele, Lea and Flood, 2014). It is the
+ * fastest engine available, with a period of 2^64. Jumps of any length are
+ * performed in constant time.
+ * @author Enrique Urra C.
+ */
+public final class SplitMix64Engine extends RandomEngine
+{
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64Engine(long seed)
+    {
+        setSeed(seed);
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return RandomEngineType.SPLITMIX64;
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        state = seed;
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { state };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        checkState(state, 1);
+        this.state = state[0];
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The exponent cannot be negative");
+
+        // The period is 2^64, so longer jumps have no effect
+        if(k < 64)
+            state += GOLDEN_GAMMA << k;
+    }
+
+    @Override
+    public void advance(long steps)
+    {
+        state += steps * GOLDEN_GAMMA;
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return 40;
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return 64;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+}
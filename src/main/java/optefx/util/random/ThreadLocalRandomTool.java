@@ -0,0 +1,250 @@
+
+package optefx.util.random;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implements a thread-local random tool, which associates a different random
+ * item to each thread through a ThreadLocal object. Unlike the multi-thread
+ * implementation, no shared table is accessed when random numbers are
+ * generated, and no clean-up of dead threads is required.
+ *
+ * The stream of each thread is a substream of the master seed's sequence (see
+ * RandomEngine.createSubstream()), selected by the order in which the thread
+ * accessed the tool for the first time. Therefore, the streams of different
+ * threads do not overlap. The first thread uses the master sequence itself, so
+ * a sequential execution produces the same numbers than the single thread 
+ * implementation. The ordinals are not reused, and the amount of substreams is
+ * limited by the period of the engine (e.g., 2^15 for LCG48, see 
+ * RandomEngine.getSubstreamCount()). The threads beyond such limit use seeds
+ * derived from the master seed (see SeedSequence), whose streams are 
+ * independent but may overlap with the other ones.
+ *
+ * When a snapshot is restored, its streams are assigned to the threads in the
+ * order they access the tool, starting from the thread that restores it. The
+ * snapshots only contain the streams of the threads that are alive, and the
+ * threads that access the tool after a restoration use new substreams, which
+ * do not overlap with the ones assigned before the snapshot.
+ * @author Enrique Urra C.
+ */
+class ThreadLocalRandomTool extends RandomTool
+{
+    /**
+     * Registers the item of a thread, which is discarded when the thread is
+     * collected or found dead.
+     */
+    private static final class Registration extends WeakReference<Thread>
+    {
+        public final long ordinal;
+        public final RandomItem item;
+
+        public Registration(Thread thread, long ordinal, RandomItem item, ReferenceQueue<Thread> queue)
+        {
+            super(thread, queue);
+            this.ordinal = ordinal;
+            this.item = item;
+        }
+    }
+
+    /**
+     * Maintains the thread streams that are derived from a single master seed.
+     * The items of the live threads are registered for the snapshots, and the
+     * registrations of finished threads are discarded, so the memory does not
+     * grow with the amount of threads that have used the tool.
+     */
+    private static final class Streams extends ThreadLocal<RandomItem>
+    {
+        private final RandomEngineType engineType;
+        private final long masterSeed;
+        private final RandomState restoredState;
+        private final int restoredCount;
+        private final long firstNewStream;
+        private final AtomicLong nextOrdinal;
+        private final Set<Registration> registrations;
+        private final ReferenceQueue<Thread> collected;
+        private final RandomEngine masterEngine;
+        private final SeedSequence seeds;
+
+        public Streams(RandomEngineType engineType, long masterSeed, RandomState restoredState)
+        {
+            this.engineType = engineType;
+            this.masterSeed = masterSeed;
+            this.restoredState = restoredState;
+            this.restoredCount = restoredState == null ? 0 : restoredState.getStreamCount();
+            this.firstNewStream = restoredState == null ? 0 : restoredState.getNextStream();
+            this.nextOrdinal = new AtomicLong();
+            this.registrations = ConcurrentHashMap.newKeySet();
+            this.collected = new ReferenceQueue<>();
+            this.masterEngine = engineType.create(masterSeed);
+            this.seeds = new SeedSequence(masterSeed);
+        }
+
+        /**
+         * Gets the index of the substream that corresponds to an ordinal. The
+         * ordinals of the restored streams are followed by new substreams, 
+         * which start after the ones assigned before the snapshot.
+         */
+        private long getStreamIndex(long ordinal)
+        {
+            return ordinal < restoredCount ? ordinal : firstNewStream + (ordinal - restoredCount);
+        }
+
+        private void purge()
+        {
+            Reference<? extends Thread> ref;
+
+            while((ref = collected.poll()) != null)
+                registrations.remove(ref);
+        }
+
+        @Override
+        protected RandomItem initialValue()
+        {
+            purge();
+            long ordinal = nextOrdinal.getAndIncrement();
+            RandomItem item;
+
+            if(ordinal < restoredCount)
+            {
+                int stream = (int)ordinal;
+                item = new RandomItem(engineType.create(masterSeed), masterSeed);
+                item.restore(restoredState.getSeed(stream), restoredState.getState(stream));
+            }
+            else
+            {
+                long index = getStreamIndex(ordinal);
+
+                if(index < masterEngine.getSubstreamCount())
+                    item = new RandomItem(masterEngine.createSubstream(index), masterSeed);
+                else
+                    item = new RandomItem(engineType.create(seeds.deriveSeed(index)), masterSeed);
+            }
+
+            registrations.add(new Registration(Thread.currentThread(), ordinal, item, collected));
+            return item;
+        }
+
+        public RandomState capture(int mode)
+        {
+            purge();
+            ArrayList<Registration> live = new ArrayList<>(registrations.size());
+
+            for(Registration reg : registrations)
+            {
+                Thread thread = reg.get();
+
+                if(thread != null && thread.isAlive())
+                    live.add(reg);
+                else
+                    registrations.remove(reg);
+            }
+
+            live.sort((a, b) -> Long.compare(a.ordinal, b.ordinal));
+            int count = live.size();
+            long[] seeds = new long[count];
+            long[][] states = new long[count][];
+
+            for(int i = 0; i < count; i++)
+            {
+                seeds[i] = live.get(i).item.getSeed();
+                states[i] = live.get(i).item.getState();
+            }
+
+            return new RandomState(mode, engineType, masterSeed, seeds, states, getStreamIndex(nextOrdinal.get()));
+        }
+    }
+
+    /**
+     * The current streams. A new object is set each time the master seed is
+     * changed, so the items of every thread are generated again.
+     */
+    private volatile Streams streams;
+
+    /**
+     * Creates the tool with a specific engine type.
+     * @param engineType The type of the engines.
+     */
+    public ThreadLocalRandomTool(RandomEngineType engineType)
+    {
+        streams = new Streams(engineType, createRandomSeed(), null);
+    }
+
+    @Override
+    public RandomEngine getEngine()
+    {
+        return streams.get().getEngine();
+    }
+
+    @Override
+    public Random getRandom()
+    {
+        return streams.get().getRandom();
+    }
+
+    @Override
+    public final long createRandomSeed()
+    {
+        return createUniqueSeed();
+    }
+
+    /**
+     * Sets the master seed of the tool. The current thread will use the
+     * provided seed, and the remaining threads will use seeds derived from it
+     * in the order they access the tool.
+     * @param seed The master seed.
+     */
+    @Override
+    public void setSeed(long seed)
+    {
+        Streams newStreams = new Streams(streams.engineType, seed, null);
+        newStreams.get();
+        streams = newStreams;
+    }
+
+    /**
+     * Gets the master seed of the tool.
+     * @return The master seed.
+     */
+    @Override
+    public long getSeed()
+    {
+        return streams.masterSeed;
+    }
+
+    @Override
+    RandomItem getCurrentItem()
+    {
+        return streams.get();
+    }
+
+    @Override
+    RandomState captureState()
+    {
+        return captureState(MODE_THREAD_LOCAL);
+    }
+
+    /**
+     * Captures the state of the thread streams.
+     * @param mode The mode identifier of the snapshot.
+     * @return The snapshot.
+     */
+    final RandomState captureState(int mode)
+    {
+        return streams.capture(mode);
+    }
+
+    @Override
+    void restoreState(RandomState state)
+    {
+        Streams newStreams = new Streams(state.getEngineType(), state.getMasterSeed(), state);
+        newStreams.get();
+        streams = newStreams;
+    }
+}
@@ -0,0 +1,73 @@
+
+package optefx.util.random;
+
+/**
+ * Defines a sampler of indices according to a set of non-negative weights, 
+ * i.e., the probability of the index i to be drawn is proportional to its
+ * weight. Such samplers can be used for roulette-wheel selection or weighted
+ * choices, avoiding the linear scans over cumulative weights.
+ *
+ * Two implementations are available:
+ * - AliasSampler, for weights that do not change between draws. Each draw
+ *   is performed in constant time.
+ * - FenwickSampler, for weights that change between draws. Each draw and 
+ *   each weight update is performed in logarithmic time.
+ * @author Enrique Urra C.
+ */
+public abstract class WeightedSampler
+{
+    /**
+     * Checks that a weight is valid.
+     * @param index The index of the weight.
+     * @param weight The weight.
+     */
+    static void checkWeight(int index, double weight)
+    {
+        if(!(weight >= 0.0) || Double.isInfinite(weight))
+            throw new IllegalArgumentException("Invalid weight at position " + index + ": " + weight);
+    }
+
+    /**
+     * Gets the amount of indices that can be drawn from this sampler.
+     * @return The amount of indices.
+     */
+    public abstract int size();
+
+    /**
+     * Draws an index according to the weights.
+     * @param engine The engine to use.
+     * @return The index drawn.
+     */
+    public abstract int sample(RandomEngine engine);
+
+    /**
+     * Draws an index according to the weights, by using the current engine of
+     * the random tool.
+     * @return The index drawn.
+     */
+    public final int sample()
+    {
+        return sample(RandomTool.getInstance().getEngine());
+    }
+
+    /**
+     * Fills an array with indices drawn according to the weights.
+     * @param out The array to fill.
+     * @param engine The engine to use.
+     */
+    public void sample(int[] out, RandomEngine engine)
+    {
+        for(int i = 0; i < out.length; i++)
+            out[i] = sample(engine);
+    }
+
+    /**
+     * Fills an array with indices drawn according to the weights, by using the
+     * current engine of the random tool.
+     * @param out The array to fill.
+     */
+    public final void sample(int[] out)
+    {
+        sample(out, RandomTool.getInstance().getEngine());
+    }
+}
@@ -0,0 +1,266 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the xoshiro256** engine (Blackman and Vigna, 2018). It is a fast
+ * all-purpose engine with a 256-bit state and a period of 2^256 - 1.
+ *
+ * Jumps of 2^k steps are performed by evaluating the polynomial x^(2^k) modulo
+ * the characteristic polynomial of the engine, which requires 256 steps. The
+ * characteristic polynomial is computed once through the Berlekamp-Massey
+ * algorithm, and the jump polynomials are cached as they are required. The 
+ * substreams are 2^128 longs long, as the jump function of the reference 
+ * implementation.
+ * @author Enrique Urra C.
+ */
+public final class Xoshiro256Engine extends RandomEngine
+{
+    /**
+     * Maintains the polynomials required to perform jumps.
+     */
+    private static final class JumpTable
+    {
+        private static final int MAX_EXPONENT = 255;
+        private static final long[] CHARACTERISTIC = computeCharacteristic();
+        private static final long[][] JUMPS = new long[MAX_EXPONENT + 1][];
+
+        /**
+         * Computes the characteristic polynomial of the engine, as the minimal
+         * polynomial of a bit sequence of the state. The coefficient of x^i
+         * is stored in the bit (i % 64) of the element (i / 64).
+         * @return The polynomial, of degree 256.
+         */
+        private static long[] computeCharacteristic()
+        {
+            Xoshiro256Engine engine = new Xoshiro256Engine(0);
+            int n = 512;
+            boolean[] seq = new boolean[n];
+
+            for(int i = 0; i < n; i++)
+            {
+                seq[i] = (engine.s0 & 1) != 0;
+                engine.nextLong();
+            }
+
+            // Berlekamp-Massey over GF(2), the connection polynomial is c
+            boolean[] c = new boolean[n + 1];
+            boolean[] b = new boolean[n + 1];
+            c[0] = true;
+            b[0] = true;
+            int l = 0;
+            int m = 1;
+
+            for(int i = 0; i < n; i++)
+            {
+                boolean d = seq[i];
+
+                for(int j = 1; j <= l; j++)
+                    d ^= c[j] & seq[i - j];
+
+                if(!d)
+                {
+                    m++;
+                }
+                else
+                {
+                    boolean[] t = c.clone();
+
+                    for(int j = 0; j + m <= n; j++)
+                        c[j + m] ^= b[j];
+
+                    if(2 * l <= i)
+                    {
+                        l = i + 1 - l;
+                        b = t;
+                        m = 1;
+                    }
+                    else
+                    {
+                        m++;
+                    }
+                }
+            }
+
+            if(l != 256)
+                throw new IllegalStateException("Unexpected degree of the characteristic polynomial: " + l);
+
+            // The characteristic polynomial is the reciprocal of c
+            long[] res = new long[5];
+
+            for(int i = 0; i <= l; i++)
+            {
+                if(c[l - i])
+                    res[i >>> 6] |= 1L << i;
+            }
+
+            return res;
+        }
+
+        /**
+         * Computes the square of a polynomial modulo the characteristic 
+         * polynomial.
+         * @param p The polynomial, of degree less than 256.
+         * @return The result, of degree less than 256.
+         */
+        private static long[] squareMod(long[] p)
+        {
+            long[] sq = new long[8];
+
+            for(int i = 0; i < 256; i++)
+            {
+                if(((p[i >>> 6] >>> i) & 1) != 0)
+                    sq[(2 * i) >>> 6] |= 1L << (2 * i);
+            }
+
+            for(int d = 510; d >= 256; d--)
+            {
+                if(((sq[d >>> 6] >>> d) & 1) == 0)
+                    continue;
+
+                int shift = d - 256;
+
+                for(int i = 0; i <= 256; i++)
+                {
+                    if(((CHARACTERISTIC[i >>> 6] >>> i) & 1) != 0)
+                    {
+                        int pos = i + shift;
+                        sq[pos >>> 6] ^= 1L << pos;
+                    }
+                }
+            }
+
+            return new long[] { sq[0], sq[1], sq[2], sq[3] };
+        }
+
+        /**
+         * Gets the polynomial x^(2^k) modulo the characteristic polynomial.
+         * @param k The exponent.
+         * @return The jump polynomial.
+         */
+        public static synchronized long[] get(int k)
+        {
+            if(JUMPS[0] == null)
+                JUMPS[0] = new long[] { 2L, 0L, 0L, 0L };
+
+            int last = k;
+
+            while(JUMPS[last] == null)
+                last--;
+
+            for(int i = last + 1; i <= k; i++)
+                JUMPS[i] = squareMod(JUMPS[i - 1]);
+
+            return JUMPS[k];
+        }
+    }
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256Engine(long seed)
+    {
+        setSeed(seed);
+    }
+
+    @Override
+    public RandomEngineType getType()
+    {
+        return RandomEngineType.XOSHIRO256SS;
+    }
+
+    @Override
+    public void setSeed(long seed)
+    {
+        s0 = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        s1 = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        s2 = mix64(seed += SplitMix64Engine.GOLDEN_GAMMA);
+        s3 = mix64(seed + SplitMix64Engine.GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long[] getState()
+    {
+        return new long[] { s0, s1, s2, s3 };
+    }
+
+    @Override
+    public void setState(long[] state)
+    {
+        checkState(state, 4);
+
+        if((state[0] | state[1] | state[2] | state[3]) == 0)
+            throw new IllegalArgumentException("The state cannot be zero");
+
+        s0 = state[0];
+        s1 = state[1];
+        s2 = state[2];
+        s3 = state[3];
+    }
+
+    /**
+     * Advances the engine by applying a jump polynomial to its state.
+     * @param jump The jump polynomial.
+     */
+    private void applyJump(long[] jump)
+    {
+        long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+
+        for(int i = 0; i < 256; i++)
+        {
+            if(((jump[i >>> 6] >>> i) & 1) != 0)
+            {
+                t0 ^= s0;
+                t1 ^= s1;
+                t2 ^= s2;
+                t3 ^= s3;
+            }
+
+            nextLong();
+        }
+
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+    }
+
+    @Override
+    public void jumpPow2(int k)
+    {
+        if(k < 0)
+            throw new IllegalArgumentException("The exponent cannot be negative");
+
+        // The period is 2^256 - 1, so 2^k steps are equivalent to 2^(k % 256)
+        applyJump(JumpTable.get(k & 255));
+    }
+
+    @Override
+    protected int getSubstreamExponent()
+    {
+        return 128;
+    }
+
+    @Override
+    protected int getPeriodExponent()
+    {
+        return 256;
+    }
+
+    @Override
+    public long nextLong()
+    {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+
+        return result;
+    }
+}
@@ -0,0 +1,174 @@
+
+package optefx.util.random;
+
+/**
+ * Implements the ziggurat method by Marsaglia and Tsang (2000) for the 
+ * standard normal and exponential distributions. The normal tables have 128 
+ * layers, and the exponential tables have 256 layers. The layer index and the 
+ * candidate value are taken from different bits of a single 64-bit draw, which
+ * avoids the correlation of the original implementation.
+ * @author Enrique Urra C.
+ */
+final class Ziggurat
+{
+    private static final double NORMAL_R = 3.442619855899;
+    private static final double NORMAL_V = 9.91256303526217e-3;
+    private static final double EXP_R = 7.697117470131487;
+    private static final double EXP_V = 3.949659822581572e-3;
+
+    private static final long[] kn = new long[128];
+    private static final double[] wn = new double[128];
+    private static final double[] fn = new double[128];
+    private static final long[] ke = new long[256];
+    private static final double[] we = new double[256];
+    private static final double[] fe = new double[256];
+
+    static
+    {
+        double m1 = 2147483648.0;
+        double dn = NORMAL_R;
+        double tn = dn;
+        double q = NORMAL_V / Math.exp(-0.5 * dn * dn);
+
+        kn[0] = (long)((dn / q) * m1);
+        kn[1] = 0;
+        wn[0] = q / m1;
+        wn[127] = dn / m1;
+        fn[0] = 1.0;
+        fn[127] = Math.exp(-0.5 * dn * dn);
+
+        for(int i = 126; i >= 1; i--)
+        {
+            dn = Math.sqrt(-2.0 * Math.log(NORMAL_V / dn + Math.exp(-0.5 * dn * dn)));
+            kn[i + 1] = (long)((dn / tn) * m1);
+            tn = dn;
+            fn[i] = Math.exp(-0.5 * dn * dn);
+            wn[i] = dn / m1;
+        }
+
+        double m2 = 4294967296.0;
+        double de = EXP_R;
+        double te = de;
+        q = EXP_V / Math.exp(-de);
+
+        ke[0] = (long)((de / q) * m2);
+        ke[1] = 0;
+        we[0] = q / m2;
+        we[255] = de / m2;
+        fe[0] = 1.0;
+        fe[255] = Math.exp(-de);
+
+        for(int i = 254; i >= 1; i--)
+        {
+            de = -Math.log(EXP_V / de + Math.exp(-de));
+            ke[i + 1] = (long)((de / te) * m2);
+            te = de;
+            fe[i] = Math.exp(-de);
+            we[i] = de / m2;
+        }
+    }
+
+    private Ziggurat()
+    {
+    }
+
+    /**
+     * Gets a random double number in the open interval (0, 1).
+     * @param engine The engine to use.
+     * @return The random double obtained.
+     */
+    static double nextOpenDouble(RandomEngine engine)
+    {
+        return ((engine.nextLong() >>> 12) + 0.5) * 0x1.0p-52;
+    }
+
+    /**
+     * Gets a standard normal value.
+     * @param engine The engine to use.
+     * @return The value obtained.
+     */
+    static double normal(RandomEngine engine)
+    {
+        long bits = engine.nextLong();
+        int hz = (int)(bits >> 32);
+        int iz = (int)bits & 127;
+
+        if(Math.abs((long)hz) < kn[iz])
+            return hz * wn[iz];
+
+        return normalFix(engine, hz, iz);
+    }
+
+    /**
+     * Handles the rejected candidates of the normal ziggurat, including the
+     * tail of the distribution.
+     * @param engine The engine to use.
+     * @param hz The rejected candidate.
+     * @param iz The layer of the rejected candidate.
+     * @return The value obtained.
+     */
+    private static double normalFix(RandomEngine engine, int hz, int iz)
+    {
+        while(true)
+        {
+            double x = hz * wn[iz];
+
+            if(iz == 0)
+            {
+                double y;
+
+                do
+                {
+                    x = -Math.log(nextOpenDouble(engine)) / NORMAL_R;
+                    y = -Math.log(nextOpenDouble(engine));
+                }
+                while(y + y < x * x);
+
+                return hz > 0 ? NORMAL_R + x : -NORMAL_R - x;
+            }
+
+            if(fn[iz] + engine.nextDouble() * (fn[iz - 1] - fn[iz]) < Math.exp(-0.5 * x * x))
+                return x;
+
+            long bits = engine.nextLong();
+            hz = (int)(bits >> 32);
+            iz = (int)bits & 127;
+
+            if(Math.abs((long)hz) < kn[iz])
+                return hz * wn[iz];
+        }
+    }
+
+    /**
+     * Gets a standard exponential value (unit rate).
+     * @param engine The engine to use.
+     * @return The value obtained.
+     */
+    static double exponential(RandomEngine engine)
+    {
+        long bits = engine.nextLong();
+        long jz = bits >>> 32;
+        int iz = (int)bits & 255;
+
+        if(jz < ke[iz])
+            return jz * we[iz];
+
+        while(true)
+        {
+            if(iz == 0)
+                return EXP_R - Math.log(nextOpenDouble(engine));
+
+            double x = jz * we[iz];
+
+            if(fe[iz] + engine.nextDouble() * (fe[iz - 1] - fe[iz]) < Math.exp(-x))
+                return x;
+
+            bits = engine.nextLong();
+            jz = bits >>> 32;
+            iz = (int)bits & 255;
+
+            if(jz < ke[iz])
+                return jz * we[iz];
+        }
+    }
+}
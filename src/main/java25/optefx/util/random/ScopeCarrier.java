@@ -0,0 +1,40 @@
+
+package optefx.util.random;
+
+import java.util.function.Supplier;
+
+/**
+ * Binds the current random scope to the executing code through a ScopedValue
+ * object, so the scope is visible to the subtasks forked in a 
+ * StructuredTaskScope without any per-thread storage. This implementation is
+ * used in Java 25 and later through the multi-release JAR.
+ * @author Enrique Urra C.
+ */
+final class ScopeCarrier
+{
+    private static final ScopedValue<RandomScope> current = ScopedValue.newInstance();
+
+    private ScopeCarrier()
+    {
+    }
+
+    /**
+     * Gets the scope bound to the executing code.
+     * @return The scope, or null if no scope is bound.
+     */
+    static RandomScope get()
+    {
+        return current.isBound() ? current.get() : null;
+    }
+
+    /**
+     * Executes a task with a scope bound.
+     * @param scope The scope.
+     * @param task The task.
+     * @return The result of the task.
+     */
+    static <T> T call(RandomScope scope, Supplier<T> task)
+    {
+        return ScopedValue.where(current, scope).call(task::get);
+    }
+}